@@ -0,0 +1,77 @@
+package com.example.tiendaperfericos.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total de un carrito como se calculaba antes (stream de {@code BigDecimal}, un objeto por
+ * línea y por suma) frente al cálculo en centavos de {@link Dinero}. Se ejecuta con
+ * {@code ./mvnw -P benchmark test-compile exec:exec -Djmh.incluir=Dinero}; el perfil pasa
+ * {@code -prof gc} para ver también los bytes asignados por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DineroBenchmark {
+
+    private record Linea(BigDecimal precioUnitario, int cantidad) {
+    }
+
+    @Param({"3", "20", "100"})
+    private int lineas;
+
+    private List<Linea> carrito;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        carrito = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            // Precios de DECIMAL(10, 2): escala 2, como llegan de la base de datos
+            carrito.add(new Linea(BigDecimal.valueOf(100 + random.nextInt(500_000), 2), 1 + random.nextInt(5)));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalStream() {
+        return carrito.stream()
+                .map(linea -> linea.precioUnitario().multiply(BigDecimal.valueOf(linea.cantidad())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal centavosLong() {
+        long total = 0;
+        for (Linea linea : carrito) {
+            total = Math.addExact(total, Dinero.subtotal(linea.precioUnitario(), linea.cantidad()));
+        }
+        return Dinero.aDecimal(total);
+    }
+
+    @Benchmark
+    public long soloCentavos() {
+        long total = 0;
+        for (Linea linea : carrito) {
+            total = Math.addExact(total, Dinero.subtotal(linea.precioUnitario(), linea.cantidad()));
+        }
+        return total;
+    }
+}
@@ -28,4 +28,8 @@ public interface CarritoRepository extends JpaRepository<Carrito, Long> {
     Long countByUsuarioId(@Param("usuarioId") Long usuarioId);
 
     void deleteByUsuario(Usuarios usuario);
-}
\ No newline at end of file
+
+    @Query("SELECT c.id FROM Carrito c WHERE c.usuario.id = :usuarioId")
+    Optional<Long> findIdByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+}
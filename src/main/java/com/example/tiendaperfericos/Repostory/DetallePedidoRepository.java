@@ -6,12 +6,18 @@ package com.example.tiendaperfericos.Repostory;
 import com.example.tiendaperfericos.entity.DetallePedido;
 import com.example.tiendaperfericos.entity.Pedido;
 import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long> {
@@ -32,6 +38,30 @@ public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Lo
     @Query("SELECT d.producto, SUM(d.cantidad) as totalVendido FROM DetallePedido d GROUP BY d.producto ORDER BY totalVendido DESC")
     List<Object[]> findProductosMasVendidos();
 
+    @Query("SELECT d.producto.id, SUM(d.cantidad) as totalVendido FROM DetallePedido d " +
+            "WHERE d.pedido.fechaPedido >= :desde AND d.pedido.estado <> :excluido " +
+            "GROUP BY d.producto.id ORDER BY totalVendido DESC")
+    List<Object[]> findVentasPorProductoDesde(@Param("desde") LocalDateTime desde,
+                                              @Param("excluido") EstadoPedido excluido);
+
+    @Query("SELECT d.producto.id, SUM(d.cantidad) FROM DetallePedido d " +
+            "WHERE d.pedido.estado <> :excluido GROUP BY d.producto.id")
+    List<Object[]> findVentasPorProducto(@Param("excluido") EstadoPedido excluido);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT d.pedido.id, d.producto.id FROM DetallePedido d " +
+            "WHERE d.pedido.estado <> :excluido ORDER BY d.pedido.id")
+    Stream<Object[]> streamProductosPorPedido(@Param("excluido") EstadoPedido excluido);
+
     @Query("SELECT d FROM DetallePedido d WHERE d.pedido IN (SELECT p FROM Pedido p WHERE p.usuario.id = :usuarioId)")
     List<DetallePedido> findByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT d.id, p.id, p.fechaPedido, p.estado, pr.id, pr.nombre, d.cantidad, d.precioUnitario " +
+            "FROM DetallePedido d JOIN d.pedido p JOIN d.producto pr " +
+            "WHERE (:desde IS NULL OR p.fechaPedido >= :desde) AND (:hasta IS NULL OR p.fechaPedido < :hasta) " +
+            "AND (:estado IS NULL OR p.estado = :estado) ORDER BY p.id, d.id")
+    Stream<Object[]> streamExportacion(@Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta,
+                                       @Param("estado") EstadoPedido estado);
 }
\ No newline at end of file
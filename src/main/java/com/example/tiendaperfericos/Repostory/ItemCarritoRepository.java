@@ -42,4 +42,7 @@ public interface ItemCarritoRepository extends JpaRepository<ItemCarrito, Long>
 
     @Query("SELECT COUNT(i) FROM ItemCarrito i WHERE i.carrito.id = :carritoId")
     Integer countItemsByCarritoId(@Param("carritoId") Long carritoId);
+
+    @Query("SELECT i.producto.id, i.cantidad, i.precioUnitario FROM ItemCarrito i WHERE i.carrito.id = :carritoId")
+    List<Object[]> findLineasByCarritoId(@Param("carritoId") Long carritoId);
 }
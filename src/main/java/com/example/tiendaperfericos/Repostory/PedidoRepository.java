@@ -2,17 +2,22 @@ package com.example.tiendaperfericos.Repostory;
 
 
 
+import com.example.tiendaperfericos.dto.PedidoResumenDTO;
 import com.example.tiendaperfericos.entity.Pedido;
 import com.example.tiendaperfericos.entity.Usuarios;
 import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
@@ -39,6 +44,16 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     @Query("SELECT p FROM Pedido p ORDER BY p.fechaPedido DESC")
     List<Pedido> findAllOrderByFechaDesc();
 
+    @Query("SELECT new com.example.tiendaperfericos.dto.PedidoResumenDTO(p.id, p.fechaPedido, p.total, p.estado, " +
+            "p.direccionEntrega, p.telefonoContacto, u.nombre, u.apellido, u.email) " +
+            "FROM Pedido p JOIN p.usuario u ORDER BY p.fechaPedido DESC")
+    List<PedidoResumenDTO> findResumenesOrderByFechaDesc();
+
+    @Query("SELECT new com.example.tiendaperfericos.dto.PedidoResumenDTO(p.id, p.fechaPedido, p.total, p.estado, " +
+            "p.direccionEntrega, p.telefonoContacto, u.nombre, u.apellido, u.email) " +
+            "FROM Pedido p JOIN p.usuario u WHERE u.id = :usuarioId ORDER BY p.fechaPedido DESC")
+    List<PedidoResumenDTO> findResumenesByUsuarioId(@Param("usuarioId") Long usuarioId);
+
     @Query("SELECT p FROM Pedido p WHERE p.estado IN :estados ORDER BY p.fechaPedido DESC")
     List<Pedido> findByEstadoIn(@Param("estados") List<EstadoPedido> estados);
 
@@ -61,4 +76,12 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
             "ORDER BY mes", nativeQuery = true)
     List<Object[]> getVentasMensuales(@Param("year") int year);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.fechaPedido, p.estado, p.total, u.id, u.email, p.direccionEntrega, p.telefonoContacto " +
+            "FROM Pedido p JOIN p.usuario u " +
+            "WHERE (:desde IS NULL OR p.fechaPedido >= :desde) AND (:hasta IS NULL OR p.fechaPedido < :hasta) " +
+            "AND (:estado IS NULL OR p.estado = :estado) ORDER BY p.id")
+    Stream<Object[]> streamExportacion(@Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta,
+                                       @Param("estado") EstadoPedido estado);
 }
\ No newline at end of file
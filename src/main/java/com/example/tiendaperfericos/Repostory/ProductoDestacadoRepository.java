@@ -0,0 +1,25 @@
+package com.example.tiendaperfericos.Repostory;
+
+import com.example.tiendaperfericos.entity.ProductoDestacado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductoDestacadoRepository extends JpaRepository<ProductoDestacado, Long> {
+
+    List<ProductoDestacado> findAllByOrderByPosicionAsc();
+
+    boolean existsByProductoId(Long productoId);
+
+    @Query("SELECT COALESCE(MAX(d.posicion), 0) FROM ProductoDestacado d")
+    Integer findMaxPosicion();
+
+    @Modifying
+    @Query("DELETE FROM ProductoDestacado d WHERE d.producto.id = :productoId")
+    void deleteByProductoId(@Param("productoId") Long productoId);
+}
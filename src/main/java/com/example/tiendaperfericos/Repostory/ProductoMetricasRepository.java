@@ -0,0 +1,13 @@
+package com.example.tiendaperfericos.Repostory;
+
+import com.example.tiendaperfericos.entity.ProductoMetricas;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductoMetricasRepository extends JpaRepository<ProductoMetricas, Long> {
+
+    List<ProductoMetricas> findTop20ByOrderByVistasDesc();
+}
@@ -1,18 +1,27 @@
 package com.example.tiendaperfericos.Repostory;
 
 import com.example.tiendaperfericos.entity.Categoria;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
 import com.example.tiendaperfericos.entity.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto>,
+        ProductoRepositoryCustom {
 
     List<Producto> findByActivoTrue();
 
@@ -26,9 +35,19 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
     List<Producto> findByNombreContainingIgnoreCaseAndActivoTrue(String nombre);
 
+    List<Producto> findByIdInAndActivoTrue(Collection<Long> ids);
+
     @Query("SELECT p FROM Producto p WHERE p.activo = true AND p.categoria.activa = true")
     List<Producto> findProductosActivos();
 
+    @Query("SELECT p.id, p.categoria.id, p.fechaActualizacion FROM Producto p")
+    List<Object[]> findSellosActualizacion();
+
+    @Query("SELECT new com.example.tiendaperfericos.dto.ProductoResumenDTO(p.id, p.nombre, " +
+            "SUBSTRING(p.descripcion, 1, 160), p.precio, p.stock, p.imagenUrl, c.id, c.nombre, p.activo) " +
+            "FROM Producto p JOIN p.categoria c WHERE p.activo = true AND c.activa = true ORDER BY p.id")
+    List<ProductoResumenDTO> findResumenesActivos();
+
     @Query("SELECT p FROM Producto p WHERE p.activo = true AND p.categoria.id = :categoriaId AND p.precio BETWEEN :precioMin AND :precioMax")
     List<Producto> findByCategoriaAndPrecioBetween(
             @Param("categoriaId") Long categoriaId,
@@ -42,7 +61,7 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     @Query("SELECT p FROM Producto p WHERE p.activo = true AND p.categoria.nombre = :categoriaNombre")
     List<Producto> findByCategoriaNombre(@Param("categoriaNombre") String categoriaNombre);
 
-    @Query("SELECT p FROM Producto p WHERE p.activo = true AND p.nombre LIKE %:termino% OR p.descripcion LIKE %:termino%")
+    @Query("SELECT p FROM Producto p WHERE p.activo = true AND (p.nombre LIKE %:termino% OR p.descripcion LIKE %:termino%)")
     List<Producto> buscarPorTermino(@Param("termino") String termino);
 
     @Query("SELECT COUNT(p) FROM Producto p WHERE p.activo = true")
@@ -55,4 +74,18 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findAllOrderByPrecioDesc();
 
     Optional<Producto> findByIdAndActivoTrue(Long id);
+
+    // Descuenta en una sola sentencia y solo si alcanza: dos pedidos a la vez no pueden dejar el stock negativo
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.fechaActualizacion = LOCAL_DATETIME " +
+            "WHERE p.id = :id AND p.stock >= :cantidad")
+    int descontarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    @Query("SELECT p.nombre, p.stock, p.categoria.id FROM Producto p WHERE p.id = :id")
+    List<Object[]> findStockById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.nombre, p.descripcion, p.precio, p.stock, c.id, c.nombre, p.imagenUrl, p.activo, " +
+            "p.fechaCreacion, p.fechaActualizacion FROM Producto p JOIN p.categoria c ORDER BY p.id")
+    Stream<Object[]> streamExportacion();
 }
\ No newline at end of file
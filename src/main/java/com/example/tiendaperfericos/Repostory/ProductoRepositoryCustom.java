@@ -0,0 +1,25 @@
+package com.example.tiendaperfericos.Repostory;
+
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
+import com.example.tiendaperfericos.entity.Producto;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Filas [categoriaId, categoriaNombre, rangoPrecio, enRango, cantidad] agrupadas por categoría,
+     * tramo de precio de ancho {@code anchoRango} y si el producto cae dentro de [precioMin, precioMax].
+     */
+    List<Object[]> agregarFacetas(Specification<Producto> spec, BigDecimal precioMin, BigDecimal precioMax,
+                                  BigDecimal anchoRango);
+
+    /**
+     * Resúmenes de los productos que cumplen {@code spec}, seleccionando solo las columnas de
+     * los listados y con la descripción ya recortada.
+     */
+    List<ProductoResumenDTO> buscarResumenes(Specification<Producto> spec, Sort sort, int limite);
+}
@@ -0,0 +1,80 @@
+package com.example.tiendaperfericos.Repostory;
+
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
+import com.example.tiendaperfericos.entity.Categoria;
+import com.example.tiendaperfericos.entity.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Object[]> agregarFacetas(Specification<Producto> spec, BigDecimal precioMin, BigDecimal precioMax,
+                                         BigDecimal anchoRango) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Producto> root = query.from(Producto.class);
+        Join<Producto, Categoria> categoria = root.join("categoria");
+        Expression<BigDecimal> precio = root.get("precio");
+        Expression<Integer> rango = cb.floor(cb.quot(precio, anchoRango)).as(Integer.class);
+
+        List<Selection<?>> seleccion = new ArrayList<>(List.of(categoria.get("id"), categoria.get("nombre"), rango));
+        List<Expression<?>> grupos = new ArrayList<>(List.of(categoria.get("id"), categoria.get("nombre"), rango));
+
+        List<Predicate> limites = new ArrayList<>();
+        if (precioMin != null) {
+            limites.add(cb.greaterThanOrEqualTo(precio, precioMin));
+        }
+        if (precioMax != null) {
+            limites.add(cb.lessThanOrEqualTo(precio, precioMax));
+        }
+        if (limites.isEmpty()) {
+            seleccion.add(cb.literal(1));
+        } else {
+            Expression<Integer> enRango = cb.<Integer>selectCase()
+                    .when(cb.and(limites.toArray(new Predicate[0])), 1)
+                    .otherwise(0);
+            seleccion.add(enRango);
+            grupos.add(enRango);
+        }
+        seleccion.add(cb.count(root));
+
+        query.multiselect(seleccion)
+                .where(spec.toPredicate(root, query, cb))
+                .groupBy(grupos);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<ProductoResumenDTO> buscarResumenes(Specification<Producto> spec, Sort sort, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoResumenDTO> query = cb.createQuery(ProductoResumenDTO.class);
+        Root<Producto> root = query.from(Producto.class);
+        Join<Producto, Categoria> categoria = root.join("categoria");
+
+        query.select(cb.construct(ProductoResumenDTO.class,
+                        root.get("id"),
+                        root.get("nombre"),
+                        cb.substring(root.get("descripcion"), 1, ProductoResumenDTO.LONGITUD_DESCRIPCION),
+                        root.get("precio"),
+                        root.get("stock"),
+                        root.get("imagenUrl"),
+                        categoria.get("id"),
+                        categoria.get("nombre"),
+                        root.get("activo")))
+                .where(spec.toPredicate(root, query, cb))
+                .orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query).setMaxResults(limite).getResultList();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.tiendaperfericos.Repostory;
+
+import com.example.tiendaperfericos.entity.Producto;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+public final class ProductoSpecifications {
+
+    private ProductoSpecifications() {
+    }
+
+    public static Specification<Producto> activosEnCategoriaActiva() {
+        return (root, query, cb) -> cb.and(
+                cb.isTrue(root.get("activo")),
+                cb.isTrue(root.get("categoria").get("activa")));
+    }
+
+    public static Specification<Producto> deCategoria(Long categoriaId) {
+        return (root, query, cb) -> cb.equal(root.get("categoria").get("id"), categoriaId);
+    }
+
+    public static Specification<Producto> precioDesde(BigDecimal precioMin) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("precio"), precioMin);
+    }
+
+    public static Specification<Producto> precioHasta(BigDecimal precioMax) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("precio"), precioMax);
+    }
+
+    public static Specification<Producto> conStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+    }
+
+    public static Specification<Producto> conIds(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    public static Specification<Producto> despuesDeId(Long id, boolean ascendente) {
+        return (root, query, cb) -> ascendente
+                ? cb.greaterThan(root.get("id"), id)
+                : cb.lessThan(root.get("id"), id);
+    }
+
+    public static <T extends Comparable<? super T>> Specification<Producto> despuesDe(String campo, T valor,
+                                                                                     Long id, boolean ascendente) {
+        return (root, query, cb) -> {
+            Path<T> path = root.get(campo);
+            Predicate siguiente = ascendente ? cb.greaterThan(path, valor) : cb.lessThan(path, valor);
+            Predicate desempate = ascendente
+                    ? cb.greaterThan(root.get("id"), id)
+                    : cb.lessThan(root.get("id"), id);
+            return cb.or(siguiente, cb.and(cb.equal(path, valor), desempate));
+        };
+    }
+}
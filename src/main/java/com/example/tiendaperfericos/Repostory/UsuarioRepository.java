@@ -2,6 +2,7 @@ package com.example.tiendaperfericos.Repostory;
 
 
 
+import com.example.tiendaperfericos.dto.UsuarioResumenDTO;
 import com.example.tiendaperfericos.entity.Rol;
 import com.example.tiendaperfericos.entity.Usuarios;
 
@@ -24,6 +25,11 @@ public interface UsuarioRepository extends JpaRepository<Usuarios, Long> {
 
     List<Usuarios> findByActivoTrue();
 
+    @Query("SELECT new com.example.tiendaperfericos.dto.UsuarioResumenDTO(u.id, u.nombre, u.apellido, u.email, " +
+            "u.telefono, u.fechaRegistro, u.activo, r.nombre) " +
+            "FROM Usuarios u JOIN u.rol r WHERE u.activo = true")
+    List<UsuarioResumenDTO> findResumenesActivos();
+
     List<Usuarios> findByRolNombre(String rolNombre);
 
     @Query("SELECT u FROM Usuarios u WHERE u.nombre LIKE %:nombre% OR u.apellido LIKE %:nombre%")
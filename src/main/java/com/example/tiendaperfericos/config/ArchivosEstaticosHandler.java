@@ -0,0 +1,330 @@
+package com.example.tiendaperfericos.config;
+
+import com.example.tiendaperfericos.services.implement.ImagenServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sirve las imágenes estáticas y sus variantes sin pasar el contenido por buffers del heap:
+ * con sendfile cuando el conector de Tomcat lo permite y, si no, con {@link FileChannel#transferTo}.
+ * Atiende peticiones condicionales, rangos de bytes y variantes precomprimidas (.br/.gz), y
+ * guarda en memoria los metadatos de cada archivo para no consultar el disco en cada petición.
+ */
+@Component
+@Slf4j
+public class ArchivosEstaticosHandler implements HttpRequestHandler {
+
+    public static final String RUTA_IMAGENES = "/images/";
+
+    // Atributos con los que Tomcat envía el archivo directamente desde el socket
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private static final Set<String> COMPRIMIBLES = Set.of("svg", "css", "js", "json", "txt", "xml", "ico");
+    private static final long TAMANO_MINIMO_GZIP = 1024;
+
+    private final Path directorio;
+    private final Path directorioVariantes;
+    private final CacheControl cacheImagenes;
+    private final CacheControl cacheVariantes = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private final Cache<String, Optional<Entrada>> indice;
+
+    public ArchivosEstaticosHandler(ImagenServiceImpl imagenService,
+                                    @Value("${tienda.estaticos.directorio:${java.io.tmpdir}/tienda-estaticos}") String directorio,
+                                    @Value("${tienda.estaticos.max-age-s:86400}") long maxAge,
+                                    @Value("${tienda.estaticos.max-archivos:10000}") long maxArchivos) {
+        this.directorio = Path.of(directorio).toAbsolutePath();
+        this.directorioVariantes = imagenService.getDirectorio().toAbsolutePath().normalize();
+        this.cacheImagenes = CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic();
+        this.indice = Caffeine.newBuilder().maximumSize(maxArchivos).build();
+    }
+
+    /**
+     * Metadatos de un archivo servible. Los precomprimidos son null si no existen.
+     */
+    private record Entrada(Path archivo, long longitud, long ultimaModificacion, String etag, MediaType tipo,
+                           Path brotli, Path gzip) {
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String ruta = urlPathHelper.getLookupPathForRequest(request);
+        Entrada entrada = buscar(ruta);
+        if (entrada == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        boolean hayPrecomprimido = entrada.brotli() != null || entrada.gzip() != null;
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                (ruta.startsWith(ImagenServiceImpl.RUTA_VARIANTES) ? cacheVariantes : cacheImagenes).getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (hayPrecomprimido) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        // Los rangos se calculan siempre sobre la representación sin comprimir
+        String codificacion = rango == null && hayPrecomprimido
+                ? elegirCodificacion(request.getHeader(HttpHeaders.ACCEPT_ENCODING), entrada) : null;
+        String etag = codificacion == null ? entrada.etag()
+                : entrada.etag().substring(0, entrada.etag().length() - 1) + "-" + codificacion + "\"";
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, entrada.ultimaModificacion())) {
+            return;
+        }
+        response.setContentType(entrada.tipo().toString());
+
+        if (codificacion != null) {
+            Path archivo = "br".equals(codificacion) ? entrada.brotli() : entrada.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, codificacion);
+            enviar(request, response, archivo, 0, Files.size(archivo));
+            return;
+        }
+
+        if (rango != null && rangoVigente(request.getHeader(HttpHeaders.IF_RANGE), entrada)) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(rango);
+            } catch (IllegalArgumentException e) {
+                rangos = List.of();
+            }
+            // Varios rangos exigirían multipart/byteranges; se responde con el archivo completo
+            if (rangos.size() == 1) {
+                long longitud = entrada.longitud();
+                long inicio;
+                long fin;
+                try {
+                    inicio = rangos.get(0).getRangeStart(longitud);
+                    fin = rangos.get(0).getRangeEnd(longitud);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + longitud);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + longitud);
+                enviar(request, response, entrada.archivo(), inicio, fin - inicio + 1);
+                return;
+            }
+        }
+
+        enviar(request, response, entrada.archivo(), 0, entrada.longitud());
+    }
+
+    private Entrada buscar(String ruta) {
+        if (ruta.startsWith(ImagenServiceImpl.RUTA_VARIANTES)) {
+            // Las variantes aparecen mientras la aplicación corre: los fallos no se recuerdan
+            Entrada entrada = indice.get(ruta, r -> Optional.ofNullable(indexarVariante(r))).orElse(null);
+            if (entrada == null) {
+                indice.invalidate(ruta);
+            }
+            return entrada;
+        }
+        if (ruta.startsWith(RUTA_IMAGENES)) {
+            return indice.get(ruta, r -> Optional.ofNullable(indexarEmpaquetado(r))).orElse(null);
+        }
+        return null;
+    }
+
+    private Entrada indexarVariante(String ruta) {
+        String nombre = ruta.substring(ImagenServiceImpl.RUTA_VARIANTES.length());
+        Path archivo = directorioVariantes.resolve(nombre).normalize();
+        if (!archivo.startsWith(directorioVariantes) || !Files.isRegularFile(archivo)) {
+            return null;
+        }
+        try {
+            return crearEntrada(archivo, null);
+        } catch (IOException e) {
+            log.warn("No se pudo indexar {}: {}", ruta, e.getMessage());
+            return null;
+        }
+    }
+
+    private Entrada indexarEmpaquetado(String ruta) {
+        String relativa = ruta.substring(1);
+        if (!StringUtils.cleanPath(relativa).equals(relativa) || relativa.contains("..")) {
+            return null;
+        }
+        Resource recurso = new ClassPathResource("static/" + relativa);
+        if (!recurso.exists() || !recurso.isReadable()) {
+            return null;
+        }
+        try {
+            Path archivo;
+            if (recurso.isFile()) {
+                archivo = recurso.getFile().toPath();
+            } else {
+                // Dentro del jar no hay archivo que enviar: se extrae una vez al directorio de trabajo
+                archivo = directorio.resolve(relativa);
+                copiar(recurso, archivo);
+            }
+            return crearEntrada(archivo, directorio.resolve(relativa));
+        } catch (IOException e) {
+            log.warn("No se pudo indexar {}: {}", ruta, e.getMessage());
+            return null;
+        }
+    }
+
+    private Entrada crearEntrada(Path archivo, Path destinoGzip) throws IOException {
+        long longitud = Files.size(archivo);
+        long ultimaModificacion = Files.getLastModifiedTime(archivo).toMillis();
+        String nombre = archivo.getFileName().toString();
+        MediaType tipo = MediaTypeFactory.getMediaType(nombre).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        String etag = "\"" + Long.toHexString(longitud) + "-" + Long.toHexString(ultimaModificacion) + "\"";
+
+        Path brotli = hermano(archivo, ".br");
+        Path gzip = hermano(archivo, ".gz");
+        if (gzip == null && destinoGzip != null && longitud >= TAMANO_MINIMO_GZIP
+                && COMPRIMIBLES.contains(StringUtils.getFilenameExtension(nombre).toLowerCase(Locale.ROOT))) {
+            gzip = comprimir(archivo, destinoGzip.resolveSibling(nombre + ".gz"), longitud);
+        }
+        return new Entrada(archivo, longitud, ultimaModificacion, etag, tipo, brotli, gzip);
+    }
+
+    private static Path hermano(Path archivo, String extension) {
+        Path hermano = archivo.resolveSibling(archivo.getFileName() + extension);
+        return Files.isRegularFile(hermano) ? hermano : null;
+    }
+
+    private static Path comprimir(Path origen, Path destino, long longitudOriginal) throws IOException {
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(destino.getParent(), "gzip", ".tmp");
+        try {
+            try (OutputStream salida = new GZIPOutputStream(Files.newOutputStream(temporal))) {
+                Files.copy(origen, salida);
+            }
+            // Si apenas se gana espacio no compensa que el cliente lo descomprima
+            if (Files.size(temporal) > longitudOriginal * 9 / 10) {
+                return null;
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return destino;
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static void copiar(Resource recurso, Path destino) throws IOException {
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(destino.getParent(), "estatico", ".tmp");
+        try {
+            try (InputStream entrada = recurso.getInputStream()) {
+                Files.copy(entrada, temporal, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Conserva la fecha del jar para que el ETag no cambie en cada arranque
+            Files.setLastModifiedTime(temporal, FileTime.fromMillis(recurso.lastModified()));
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static String elegirCodificacion(String aceptadas, Entrada entrada) {
+        if (aceptadas == null) {
+            return null;
+        }
+        boolean br = false;
+        boolean gzip = false;
+        for (String parte : aceptadas.split(",")) {
+            String[] tokens = parte.trim().split(";");
+            String nombre = tokens[0].trim().toLowerCase(Locale.ROOT);
+            boolean rechazada = tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (rechazada) {
+                continue;
+            }
+            br |= nombre.equals("br");
+            gzip |= nombre.equals("gzip");
+        }
+        if (br && entrada.brotli() != null) {
+            return "br";
+        }
+        return gzip && entrada.gzip() != null ? "gzip" : null;
+    }
+
+    private static boolean rangoVigente(String ifRange, Entrada entrada) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(entrada.etag());
+        }
+        try {
+            long fecha = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return entrada.ultimaModificacion() / 1000 <= fecha / 1000;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void enviar(HttpServletRequest request, HttpServletResponse response, Path archivo,
+                               long inicio, long longitud) throws IOException {
+        response.setContentLengthLong(longitud);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat escribe el archivo al socket al terminar la petición, sin copiarlo al heap
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, inicio + longitud);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviados = 0;
+            while (enviados < longitud) {
+                long n = canal.transferTo(inicio + enviados, longitud - enviados, salida);
+                if (n <= 0) {
+                    break;
+                }
+                enviados += n;
+            }
+        }
+    }
+}
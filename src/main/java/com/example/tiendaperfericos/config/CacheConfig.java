@@ -0,0 +1,44 @@
+package com.example.tiendaperfericos.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTO = "producto";
+    public static final String PRODUCTOS = "productos";
+    public static final String PRODUCTOS_POR_CATEGORIA = "productosPorCategoria";
+    public static final String CATEGORIAS = "categorias";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${tienda.cache.ttl-minutos:10}") long ttlMinutos,
+                                     @Value("${tienda.cache.max-productos:2000}") long maxProductos,
+                                     @Value("${tienda.cache.max-listados:200}") long maxListados) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTO, construir(ttlMinutos, maxProductos));
+        cacheManager.registerCustomCache(PRODUCTOS, construir(ttlMinutos, maxListados));
+        cacheManager.registerCustomCache(PRODUCTOS_POR_CATEGORIA, construir(ttlMinutos, maxListados));
+        cacheManager.registerCustomCache(CATEGORIAS, construir(ttlMinutos, maxListados));
+
+        // Las invalidaciones se aplican al confirmar la transacción, no antes
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> construir(long ttlMinutos, long maximo) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+    }
+}
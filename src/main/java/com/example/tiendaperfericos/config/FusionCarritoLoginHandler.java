@@ -0,0 +1,61 @@
+package com.example.tiendaperfericos.config;
+
+import com.example.tiendaperfericos.dto.CarritoInvitado;
+import com.example.tiendaperfericos.services.implement.AuthServiceImpl;
+import com.example.tiendaperfericos.services.implement.CarritoServiceImpl;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Tras iniciar sesión, pasa el carrito de invitado de la sesión al carrito del usuario y lo
+ * lleva a verlo; sin carrito de invitado redirige como siempre según el rol.
+ */
+@Component
+@Slf4j
+public class FusionCarritoLoginHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    private final CarritoServiceImpl carritoService;
+    private final AuthServiceImpl authService;
+
+    public FusionCarritoLoginHandler(CarritoServiceImpl carritoService, AuthServiceImpl authService) {
+        super("/auth/redireccionar");
+        setAlwaysUseDefaultTargetUrl(true);
+        this.carritoService = carritoService;
+        this.authService = authService;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        HttpSession session = request.getSession(false);
+        CarritoInvitado invitado = session != null
+                ? (CarritoInvitado) session.getAttribute(CarritoInvitado.ATRIBUTO_SESION) : null;
+        if (invitado == null) {
+            super.onAuthenticationSuccess(request, response, authentication);
+            return;
+        }
+        session.removeAttribute(CarritoInvitado.ATRIBUTO_SESION);
+
+        boolean esCliente = authentication.getAuthorities().stream()
+                .anyMatch(autoridad -> "ROLE_USER".equals(autoridad.getAuthority()));
+        if (!esCliente || invitado.estaVacio()) {
+            super.onAuthenticationSuccess(request, response, authentication);
+            return;
+        }
+        try {
+            carritoService.fusionarCarritoInvitado(authService.getUsuarioAutenticadoId(), invitado);
+        } catch (Exception e) {
+            log.error("Error al fusionar el carrito de invitado: {}", e.getMessage());
+        }
+        clearAuthenticationAttributes(request);
+        getRedirectStrategy().sendRedirect(request, response, "/carrito");
+    }
+}
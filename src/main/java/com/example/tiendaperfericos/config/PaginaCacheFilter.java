@@ -0,0 +1,189 @@
+package com.example.tiendaperfericos.config;
+
+import com.example.tiendaperfericos.services.VersionCatalogoService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Caché del HTML ya renderizado para visitantes anónimos (sin sesión ni usuario). La clave es
+ * la ruta más los parámetros normalizados; cada página guarda el sello del catálogo con el que
+ * se generó y deja de servirse en cuanto el catálogo cambia.
+ */
+@Component
+@Slf4j
+public class PaginaCacheFilter extends OncePerRequestFilter {
+
+    /**
+     * Atributo de petición con el Cache-Control público que pide el controlador para un visitante
+     * anónimo. Se aplica tras renderizar y solo si la respuesta no abrió sesión ni fija cookies.
+     */
+    public static final String CACHE_CONTROL_PUBLICO = PaginaCacheFilter.class.getName() + ".CACHE_CONTROL_PUBLICO";
+
+    // Parámetros de campañas que no cambian el contenido de la página
+    private static final Set<String> PARAMETROS_IGNORADOS = Set.of("gclid", "fbclid", "msclkid");
+
+    private final VersionCatalogoService versionCatalogoService;
+    private final List<String> rutas;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Cache<String, PaginaRenderizada> paginas;
+
+    public PaginaCacheFilter(VersionCatalogoService versionCatalogoService,
+                             @Value("${tienda.pagina-cache.rutas:/,/home,/productos/tienda,/productos/detalle/*}") List<String> rutas,
+                             @Value("${tienda.pagina-cache.max-mb:32}") long maxMegabytes) {
+        this.versionCatalogoService = versionCatalogoService;
+        this.rutas = rutas;
+        this.paginas = Caffeine.newBuilder()
+                .maximumWeight(maxMegabytes * 1024 * 1024)
+                .weigher((String clave, PaginaRenderizada pagina) -> clave.length() * 2 + pagina.cuerpo.length)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())
+                || request.getRemoteUser() != null
+                || request.getSession(false) != null) {
+            return true;
+        }
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return rutas.stream().noneMatch(patron -> matcher.match(patron, ruta));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clave = clave(request);
+        long version = versionCatalogoService.ultimaModificacion();
+
+        PaginaRenderizada pagina = paginas.getIfPresent(clave);
+        if (pagina != null && pagina.version == version) {
+            servir(pagina, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper envoltorio = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, envoltorio);
+
+        // El cuerpo sigue en el envoltorio, así que las cabeceras aún se pueden cambiar
+        boolean compartible = esCompartible(request, envoltorio);
+        String cacheControlPublico = (String) request.getAttribute(CACHE_CONTROL_PUBLICO);
+        if (compartible && cacheControlPublico != null) {
+            envoltorio.setHeader(HttpHeaders.CACHE_CONTROL, cacheControlPublico);
+        }
+
+        if (compartible && esCacheable(envoltorio)) {
+            paginas.put(clave, new PaginaRenderizada(
+                    envoltorio.getContentAsByteArray(),
+                    envoltorio.getContentType(),
+                    envoltorio.getHeader(HttpHeaders.ETAG),
+                    fecha(envoltorio.getHeader(HttpHeaders.LAST_MODIFIED)),
+                    envoltorio.getHeader(HttpHeaders.CACHE_CONTROL),
+                    version));
+        }
+        envoltorio.copyBodyToResponse();
+    }
+
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("paginas", paginas.estimatedSize());
+        estadisticas.put("aciertos", paginas.stats().hitCount());
+        estadisticas.put("fallos", paginas.stats().missCount());
+        estadisticas.put("tasaAciertos", paginas.stats().hitRate());
+        estadisticas.put("expulsiones", paginas.stats().evictionCount());
+        return estadisticas;
+    }
+
+    // Si el render abrió sesión o fijó cookies, la respuesta ya no es igual para todos
+    private static boolean esCompartible(HttpServletRequest request, HttpServletResponse respuesta) {
+        return request.getSession(false) == null && !respuesta.containsHeader(HttpHeaders.SET_COOKIE);
+    }
+
+    private static boolean esCacheable(ContentCachingResponseWrapper respuesta) {
+        return respuesta.getStatus() == HttpServletResponse.SC_OK
+                && respuesta.getContentType() != null
+                && MediaType.TEXT_HTML.isCompatibleWith(MediaType.parseMediaType(respuesta.getContentType()));
+    }
+
+    private void servir(PaginaRenderizada pagina, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (pagina.cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, pagina.cacheControl);
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+        }
+        if (pagina.etag != null
+                && new ServletWebRequest(request, response).checkNotModified(pagina.etag, pagina.ultimaModificacion)) {
+            return;
+        }
+        response.setContentType(pagina.contentType);
+        response.setContentLength(pagina.cuerpo.length);
+        response.getOutputStream().write(pagina.cuerpo);
+    }
+
+    private static long fecha(String valor) {
+        return valor != null
+                ? ZonedDateTime.parse(valor, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                : -1;
+    }
+
+    private String clave(HttpServletRequest request) {
+        StringBuilder clave = new StringBuilder(request.getRequestURI());
+        TreeMap<String, String[]> parametros = new TreeMap<>();
+        request.getParameterMap().forEach((nombre, valores) -> {
+            if (PARAMETROS_IGNORADOS.contains(nombre) || nombre.startsWith("utm_")) {
+                return;
+            }
+            String[] noVacios = Arrays.stream(valores).filter(v -> !v.isBlank()).map(String::trim).sorted()
+                    .toArray(String[]::new);
+            if (noVacios.length > 0) {
+                parametros.put(nombre, noVacios);
+            }
+        });
+        char separador = '?';
+        for (Map.Entry<String, String[]> parametro : parametros.entrySet()) {
+            for (String valor : parametro.getValue()) {
+                clave.append(separador).append(parametro.getKey()).append('=').append(valor);
+                separador = '&';
+            }
+        }
+        return clave.toString();
+    }
+
+    private static final class PaginaRenderizada {
+        private final byte[] cuerpo;
+        private final String contentType;
+        private final String etag;
+        private final long ultimaModificacion;
+        private final String cacheControl;
+        private final long version;
+
+        PaginaRenderizada(byte[] cuerpo, String contentType, String etag, long ultimaModificacion,
+                          String cacheControl, long version) {
+            this.cuerpo = cuerpo;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.ultimaModificacion = ultimaModificacion;
+            this.cacheControl = cacheControl;
+            this.version = version;
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
+    private final FusionCarritoLoginHandler fusionCarritoLoginHandler;
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
@@ -42,6 +43,9 @@ public class SecurityConfig {
                                 "/css/**",
                                 "/static/js/**",
                                 "/images/**",
+                                "/imagenes/v/**",
+                                "/eventos",
+                                "/csrf",
                                 "/webjars/**",
                                 "/favicon.ico"
                         ).permitAll()
@@ -51,10 +55,10 @@ public class SecurityConfig {
                                 "/auth/login",
                                 "/auth/registro",
                                 "/auth/registrar",
-                                "/static/imagenes/productos/tienda",
-                                "/static/imagenes/productos/detalle/**",
-                                "/static/imagenes/productos/buscar",
-                                "/static/imagenes/productos/filtrar",
+                                "/productos/tienda",
+                                "/productos/tienda/mas",
+                                "/productos/sugerencias",
+                                "/productos/detalle/**",
                                 "/nosotros",
                                 "/contacto",
                                 "/error"
@@ -67,6 +71,18 @@ public class SecurityConfig {
                         ).hasRole("ADMIN")
 
 
+                        // Carrito de invitado en sesión; el checkout sigue pidiendo login
+                        .requestMatchers(
+                                "/carrito",
+                                "/carrito/agregar",
+                                "/carrito/actualizar",
+                                "/carrito/eliminar",
+                                "/carrito/limpiar",
+                                "/carrito/lote",
+                                "/carrito/contador"
+                        ).permitAll()
+
+
                         .requestMatchers(
                                 "/user/**",
                                 "/carrito/**",
@@ -80,7 +96,7 @@ public class SecurityConfig {
                 .formLogin(form -> form
                         .loginPage("/auth/login")
                         .loginProcessingUrl("/auth/login")
-                        .defaultSuccessUrl("/auth/redireccionar", true)
+                        .successHandler(fusionCarritoLoginHandler)
                         .failureUrl("/auth/login?error=true")
                         .permitAll()
                 )
@@ -0,0 +1,47 @@
+package com.example.tiendaperfericos.config;
+
+import com.example.tiendaperfericos.services.MetricasProductoService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Cuenta las visitas a la ficha de producto. Va antes de {@link PaginaCacheFilter} para contar
+ * también las páginas que se sirven desde la caché sin llegar al controlador.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class VistasProductoFilter extends OncePerRequestFilter {
+
+    private static final String RUTA_DETALLE = "/productos/detalle/";
+
+    private final MetricasProductoService metricasProductoService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + RUTA_DETALLE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String id = request.getRequestURI().substring(request.getContextPath().length() + RUTA_DETALLE.length());
+        try {
+            metricasProductoService.registrarVista(Long.valueOf(id));
+        } catch (NumberFormatException e) {
+            // Ruta que no es una ficha: la resuelve el controlador
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -1,4 +1,26 @@
 package com.example.tiendaperfericos.config;
 
+import com.example.tiendaperfericos.services.implement.ImagenServiceImpl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+@Configuration
 public class WebConfig {
+
+    /**
+     * Las imágenes y sus variantes las sirve {@link ArchivosEstaticosHandler}; el resto de
+     * recursos estáticos sigue en el manejador por defecto, que va justo después en el orden.
+     */
+    @Bean
+    public SimpleUrlHandlerMapping archivosEstaticosMapping(ArchivosEstaticosHandler handler) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of(
+                ArchivosEstaticosHandler.RUTA_IMAGENES + "**", handler,
+                ImagenServiceImpl.RUTA_VARIANTES + "**", handler));
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return mapping;
+    }
 }
@@ -1,18 +1,33 @@
 package com.example.tiendaperfericos.controllers;
 
 
+import com.example.tiendaperfericos.config.PaginaCacheFilter;
+import com.example.tiendaperfericos.dto.ImportacionEstado;
+import com.example.tiendaperfericos.dto.PedidoResumenDTO;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
+import com.example.tiendaperfericos.dto.UsuarioResumenDTO;
 import com.example.tiendaperfericos.entity.*;
 import com.example.tiendaperfericos.entity.emun.EstadoPedido;
 import com.example.tiendaperfericos.services.implement.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin")
@@ -25,6 +40,11 @@ public class AdminController {
     private final UsuarioServiceImpl usuarioService;
     private final PedidoServiceImpl pedidoService;
     private final EstadisticasServiceImpl estadisticasService;
+    private final DestacadosServiceImpl destacadosService;
+    private final PaginaCacheFilter paginaCacheFilter;
+    private final ImportacionServiceImpl importacionService;
+    private final ExportacionServiceImpl exportacionService;
+    private final MetricasProductoServiceImpl metricasProductoService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -55,7 +75,7 @@ public class AdminController {
 
     @GetMapping("/productos")
     public String listarProductos(Model model) {
-        List<Producto> productos = productoService.findAll();
+        List<ProductoResumenDTO> productos = productoService.findResumenesActivos();
         List<Categoria> categorias = categoriaService.findAll();
 
         model.addAttribute("productos", productos);
@@ -124,6 +144,77 @@ public class AdminController {
     }
 
 
+    @GetMapping("/productos/importar")
+    public String importarProductos(Model model) {
+        model.addAttribute("importaciones", importacionService.findRecientes());
+        return "admin/productos/importar";
+    }
+
+    @PostMapping("/productos/importar")
+    public String iniciarImportacion(@RequestParam("archivo") MultipartFile archivo,
+                                     RedirectAttributes redirectAttributes) {
+        if (archivo.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Selecciona un archivo CSV o JSON");
+            return "redirect:/admin/productos/importar";
+        }
+        try {
+            importacionService.iniciar(archivo);
+            redirectAttributes.addFlashAttribute("mensaje", "Importación iniciada: " + archivo.getOriginalFilename());
+        } catch (Exception e) {
+            log.error("Error al iniciar importación: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Error al iniciar la importación");
+        }
+        return "redirect:/admin/productos/importar";
+    }
+
+    @GetMapping("/productos/importar/{id}")
+    @ResponseBody
+    public ResponseEntity<ImportacionEstado> estadoImportacion(@PathVariable String id) {
+        return importacionService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/exportar/productos")
+    public void exportarProductos(@RequestParam(defaultValue = "csv") String formato,
+                                  HttpServletResponse response) throws IOException {
+        boolean jsonLines = prepararExportacion(response, "productos", formato);
+        long filas = exportacionService.exportarProductos(response.getOutputStream(), jsonLines);
+        log.info("Exportados {} productos", filas);
+    }
+
+    @GetMapping("/exportar/pedidos")
+    public void exportarPedidos(@RequestParam(defaultValue = "csv") String formato,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                @RequestParam(required = false) EstadoPedido estado,
+                                HttpServletResponse response) throws IOException {
+        boolean jsonLines = prepararExportacion(response, "pedidos", formato);
+        long filas = exportacionService.exportarPedidos(response.getOutputStream(), jsonLines, desde, hasta, estado);
+        log.info("Exportados {} pedidos", filas);
+    }
+
+    @GetMapping("/exportar/detalles")
+    public void exportarDetalles(@RequestParam(defaultValue = "csv") String formato,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                 @RequestParam(required = false) EstadoPedido estado,
+                                 HttpServletResponse response) throws IOException {
+        boolean jsonLines = prepararExportacion(response, "detalles-pedido", formato);
+        long filas = exportacionService.exportarDetalles(response.getOutputStream(), jsonLines, desde, hasta, estado);
+        log.info("Exportadas {} líneas de pedido", filas);
+    }
+
+    private static boolean prepararExportacion(HttpServletResponse response, String nombre, String formato) {
+        boolean jsonLines = "jsonl".equalsIgnoreCase(formato);
+        response.setContentType(jsonLines ? "application/x-ndjson;charset=UTF-8" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(nombre + "-" + LocalDate.now() + (jsonLines ? ".jsonl" : ".csv"))
+                .build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        return jsonLines;
+    }
+
     @GetMapping("/categorias")
     public String listarCategorias(Model model) {
         List<Categoria> categorias = categoriaService.findAllWithInactivas();
@@ -160,7 +251,7 @@ public class AdminController {
 
     @GetMapping("/pedidos")
     public String listarPedidos(Model model) {
-        List<Pedido> pedidos = pedidoService.findAll();
+        List<PedidoResumenDTO> pedidos = pedidoService.findResumenes();
         model.addAttribute("pedidos", pedidos);
         return "admin/pedidos/lista";
     }
@@ -198,7 +289,7 @@ public class AdminController {
 
     @GetMapping("/usuarios")
     public String listarUsuarios(Model model) {
-        List<Usuarios> usuarios = usuarioService.findUsuariosActivos();
+        List<UsuarioResumenDTO> usuarios = usuarioService.findResumenesActivos();
         model.addAttribute("usuarios", usuarios);
         return "admin/usuarios/lista";
     }
@@ -218,6 +309,58 @@ public class AdminController {
         return "redirect:/admin/usuarios";
     }
 
+    @GetMapping("/destacados")
+    public String listarDestacados(Model model) {
+        model.addAttribute("fijados", destacadosService.findFijados());
+        model.addAttribute("destacados", destacadosService.obtenerDestacados());
+        model.addAttribute("productos", productoService.findResumenesActivos());
+        return "admin/destacados";
+    }
+
+    @PostMapping("/destacados/fijar")
+    public String fijarDestacado(@RequestParam Long productoId, RedirectAttributes redirectAttributes) {
+        try {
+            destacadosService.fijar(productoId);
+            redirectAttributes.addFlashAttribute("mensaje", "Producto fijado en destacados");
+        } catch (Exception e) {
+            log.error("Error al fijar producto destacado: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Error al fijar producto destacado");
+        }
+        return "redirect:/admin/destacados";
+    }
+
+    @PostMapping("/destacados/quitar/{productoId}")
+    public String quitarDestacado(@PathVariable Long productoId, RedirectAttributes redirectAttributes) {
+        try {
+            destacadosService.quitar(productoId);
+            redirectAttributes.addFlashAttribute("mensaje", "Producto quitado de destacados");
+        } catch (Exception e) {
+            log.error("Error al quitar producto destacado: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Error al quitar producto destacado");
+        }
+        return "redirect:/admin/destacados";
+    }
+
+    @PostMapping("/destacados/recalcular")
+    public String recalcularDestacados(RedirectAttributes redirectAttributes) {
+        destacadosService.recalcular();
+        redirectAttributes.addFlashAttribute("mensaje", "Destacados recalculados");
+        return "redirect:/admin/destacados";
+    }
+
+    @GetMapping("/cache/estadisticas")
+    @ResponseBody
+    public Map<String, Object> estadisticasCache() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>(estadisticasService.obtenerEstadisticasCache());
+        estadisticas.put("paginasRenderizadas", paginaCacheFilter.estadisticas());
+        return estadisticas;
+    }
+
+    @GetMapping("/metricas/productos")
+    @ResponseBody
+    public List<ProductoMetricas> productosMasVistos() {
+        return metricasProductoService.findMasVistos();
+    }
 
     @GetMapping("/estadisticas")
     public String mostrarEstadisticas(Model model) {
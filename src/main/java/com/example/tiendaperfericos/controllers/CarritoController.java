@@ -1,18 +1,25 @@
 package com.example.tiendaperfericos.controllers;
 
-import com.example.tiendaperfericos.entity.Carrito;
+import com.example.tiendaperfericos.dto.CambioCarritoDTO;
+import com.example.tiendaperfericos.dto.CarritoInvitado;
+import com.example.tiendaperfericos.dto.CarritoResumenDTO;
 import com.example.tiendaperfericos.entity.ItemCarrito;
 import com.example.tiendaperfericos.services.implement.AuthServiceImpl;
 import com.example.tiendaperfericos.services.implement.CarritoServiceImpl;
+import com.example.tiendaperfericos.services.implement.EventosServiceImpl;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/carrito")
@@ -22,21 +29,26 @@ public class CarritoController {
 
     private final CarritoServiceImpl carritoService;
     private final AuthServiceImpl authService;
+    private final EventosServiceImpl eventosService;
 
     @GetMapping
-    public String verCarrito(Model model) {
+    public String verCarrito(Model model, HttpSession session) {
         try {
             Long usuarioId = authService.getUsuarioAutenticadoId();
+            List<ItemCarrito> items;
+            CarritoResumenDTO resumen;
             if (usuarioId == null) {
-                return "redirect:/auth/login";
+                CarritoInvitado invitado = carritoInvitado(session, false);
+                items = invitado != null ? carritoService.obtenerItemsInvitado(invitado) : List.of();
+                resumen = invitado != null ? carritoService.obtenerResumenInvitado(invitado) : CarritoResumenDTO.vacio();
+            } else {
+                items = carritoService.obtenerItemsCarrito(usuarioId);
+                resumen = carritoService.obtenerResumen(usuarioId);
             }
 
-            List<ItemCarrito> items = carritoService.obtenerItemsCarrito(usuarioId);
-            Carrito carrito = carritoService.findByUsuarioId(usuarioId).orElse(null);
-
             model.addAttribute("items", items);
-            model.addAttribute("carrito", carrito);
-            model.addAttribute("totalItems", carritoService.contarItems(usuarioId));
+            model.addAttribute("resumen", resumen);
+            model.addAttribute("totalItems", resumen.getTotalItems());
 
             return "user/carrito/carrito";
         } catch (Exception e) {
@@ -49,15 +61,17 @@ public class CarritoController {
     @PostMapping("/agregar")
     public String agregarAlCarrito(@RequestParam Long productoId,
                                    @RequestParam Integer cantidad,
+                                   HttpSession session,
                                    RedirectAttributes redirectAttributes) {
         try {
             Long usuarioId = authService.getUsuarioAutenticadoId();
             if (usuarioId == null) {
-                return "redirect:/auth/login";
+                int totalItems = carritoService.agregarProductoInvitado(carritoInvitado(session, true), productoId, cantidad);
+                eventosService.publicarCarritoInvitado(session.getId(), totalItems);
+            } else {
+                carritoService.agregarProducto(usuarioId, productoId, cantidad);
             }
 
-            carritoService.agregarProducto(usuarioId, productoId, cantidad);
-
             redirectAttributes.addFlashAttribute("mensaje",
                     cantidad + " producto(s) agregado(s) al carrito exitosamente");
 
@@ -74,10 +88,17 @@ public class CarritoController {
     @PostMapping("/actualizar")
     public String actualizarCantidad(@RequestParam Long productoId,
                                      @RequestParam Integer cantidad,
+                                     HttpSession session,
                                      RedirectAttributes redirectAttributes) {
         try {
             Long usuarioId = authService.getUsuarioAutenticadoId();
-            carritoService.actualizarCantidad(usuarioId, productoId, cantidad);
+            if (usuarioId == null) {
+                CarritoInvitado invitado = carritoInvitado(session, true);
+                int totalItems = carritoService.actualizarCantidadInvitado(invitado, productoId, cantidad);
+                eventosService.publicarCarritoInvitado(session.getId(), totalItems);
+            } else {
+                carritoService.actualizarCantidad(usuarioId, productoId, cantidad);
+            }
             redirectAttributes.addFlashAttribute("mensaje", "Carrito actualizado");
         } catch (Exception e) {
             log.error("Error al actualizar carrito: {}", e.getMessage());
@@ -87,12 +108,46 @@ public class CarritoController {
         return "redirect:/carrito";
     }
 
+    /**
+     * Lote de cambios de cantidad enviado por la página del carrito; responde con el resumen
+     * para repintar totales sin recargar.
+     */
+    @PostMapping("/lote")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> aplicarCambios(@RequestBody List<CambioCarritoDTO> cambios,
+                                                              HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Long usuarioId = authService.getUsuarioAutenticadoId();
+            CarritoResumenDTO resumen;
+            if (usuarioId == null) {
+                resumen = carritoService.aplicarCambiosInvitado(carritoInvitado(session, true), cambios);
+                eventosService.publicarCarritoInvitado(session.getId(), resumen.getTotalItems());
+            } else {
+                resumen = carritoService.aplicarCambios(usuarioId, cambios);
+            }
+            response.put("resumen", resumen);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error al aplicar cambios al carrito: {}", e.getMessage());
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PostMapping("/eliminar")
     public String eliminarDelCarrito(@RequestParam Long productoId,
+                                     HttpSession session,
                                      RedirectAttributes redirectAttributes) {
         try {
             Long usuarioId = authService.getUsuarioAutenticadoId();
-            carritoService.eliminarProducto(usuarioId, productoId);
+            if (usuarioId == null) {
+                CarritoInvitado invitado = carritoInvitado(session, true);
+                invitado.quitar(productoId);
+                eventosService.publicarCarritoInvitado(session.getId(), invitado.getTotalItems());
+            } else {
+                carritoService.eliminarProducto(usuarioId, productoId);
+            }
             redirectAttributes.addFlashAttribute("mensaje", "Producto eliminado del carrito"); 
         } catch (Exception e) {
             log.error("Error al eliminar producto del carrito: {}", e.getMessage());
@@ -103,10 +158,15 @@ public class CarritoController {
     }
 
     @PostMapping("/limpiar")
-    public String limpiarCarrito(RedirectAttributes redirectAttributes) {
+    public String limpiarCarrito(HttpSession session, RedirectAttributes redirectAttributes) {
         try {
             Long usuarioId = authService.getUsuarioAutenticadoId();
-            carritoService.limpiarCarrito(usuarioId);
+            if (usuarioId == null) {
+                session.removeAttribute(CarritoInvitado.ATRIBUTO_SESION);
+                eventosService.publicarCarritoInvitado(session.getId(), 0);
+            } else {
+                carritoService.limpiarCarrito(usuarioId);
+            }
             redirectAttributes.addFlashAttribute("mensaje", "Carrito limpiado");
         } catch (Exception e) {
             log.error("Error al limpiar carrito: {}", e.getMessage());
@@ -118,11 +178,12 @@ public class CarritoController {
 
     @GetMapping("/contador")
     @ResponseBody
-    public String obtenerContadorCarrito() {
+    public String obtenerContadorCarrito(HttpSession session) {
         try {
             Long usuarioId = authService.getUsuarioAutenticadoId();
             if (usuarioId == null) {
-                return "0";
+                CarritoInvitado invitado = carritoInvitado(session, false);
+                return invitado != null ? String.valueOf(invitado.getTotalItems()) : "0";
             }
             Integer totalItems = carritoService.contarItems(usuarioId);
             return totalItems != null ? totalItems.toString() : "0";
@@ -131,4 +192,20 @@ public class CarritoController {
             return "0";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Carrito del visitante sin sesión iniciada, guardado en la sesión HTTP. Solo se crea
+     * cuando hace falta escribir en él.
+     */
+    private static CarritoInvitado carritoInvitado(HttpSession session, boolean crear) {
+        CarritoInvitado carrito = (CarritoInvitado) session.getAttribute(CarritoInvitado.ATRIBUTO_SESION);
+        if (carrito == null && crear) {
+            carrito = new CarritoInvitado();
+        }
+        if (carrito != null && crear) {
+            // Se vuelve a guardar para que el contenedor sepa que el atributo cambió
+            session.setAttribute(CarritoInvitado.ATRIBUTO_SESION, carrito);
+        }
+        return carrito;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.tiendaperfericos.controllers;
+
+import com.example.tiendaperfericos.dto.CarritoInvitado;
+import com.example.tiendaperfericos.services.implement.AuthServiceImpl;
+import com.example.tiendaperfericos.services.implement.CarritoServiceImpl;
+import com.example.tiendaperfericos.services.implement.EventosServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Eventos del servidor para la página abierta: contador del carrito del usuario y, si la página
+ * es una ficha de producto, su stock. Sustituye al sondeo de /carrito/contador.
+ */
+@Controller
+@RequiredArgsConstructor
+public class EventosController {
+
+    private final EventosServiceImpl eventosService;
+    private final CarritoServiceImpl carritoService;
+    private final AuthServiceImpl authService;
+
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter eventos(@RequestParam(required = false) Long producto, HttpServletRequest request) {
+        Long usuarioId = authService.getUsuarioAutenticadoId();
+        if (usuarioId != null) {
+            return eventosService.suscribir(usuarioId, null, producto, carritoService.contarItems(usuarioId));
+        }
+        // Invitado: solo si ya tiene sesión; no se crea una por abrir el canal
+        HttpSession sesion = request.getSession(false);
+        if (sesion == null) {
+            return eventosService.suscribir(null, null, producto, null);
+        }
+        CarritoInvitado carrito = (CarritoInvitado) sesion.getAttribute(CarritoInvitado.ATRIBUTO_SESION);
+        return eventosService.suscribir(null, sesion.getId(), producto,
+                carrito != null ? carrito.getTotalItems() : 0);
+    }
+}
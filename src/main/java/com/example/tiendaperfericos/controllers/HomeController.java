@@ -3,12 +3,23 @@ package com.example.tiendaperfericos.controllers;
 
 
 
+import com.example.tiendaperfericos.entity.Producto;
 import com.example.tiendaperfericos.services.implement.ProductoServiceImpl;
+import com.example.tiendaperfericos.services.implement.VersionCatalogoServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequiredArgsConstructor
@@ -16,12 +27,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class HomeController {
 
     private final ProductoServiceImpl productoService;
+    private final VersionCatalogoServiceImpl versionCatalogoService;
 
     @GetMapping({"", "/", "/home"})
-    public String home(Model model) {
+    public String home(Model model, HttpServletRequest request, HttpServletResponse response) {
         try {
+            // Los destacados se recalculan por ventas, no solo por escrituras del catálogo
+            List<Producto> destacados = productoService.findProductosDestacados();
+            String pagina = "home-" + Integer.toHexString(destacados.stream().map(Producto::getId).toList().hashCode());
+            if (RespuestaCondicional.noModificado(request, response, pagina, versionCatalogoService.ultimaModificacion())) {
+                return null;
+            }
+
             model.addAttribute("title", "Inicio");
-            model.addAttribute("productosDestacados", productoService.findProductosDestacados());
+            model.addAttribute("productosDestacados", destacados);
             model.addAttribute("totalProductos", productoService.countProductosActivos());
             return "home";
         } catch (Exception e) {
@@ -32,6 +51,21 @@ public class HomeController {
         }
     }
 
+    /**
+     * Token CSRF para los formularios de las páginas cacheadas, que no lo llevan en el HTML.
+     * Pedirlo abre la sesión del visitante; hasta entonces sus páginas pueden salir de la caché.
+     */
+    @GetMapping("/csrf")
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> csrf(CsrfToken token) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(Map.of(
+                        "parametro", token.getParameterName(),
+                        "cabecera", token.getHeaderName(),
+                        "token", token.getToken()));
+    }
+
     @GetMapping("/contacto")
     public String contacto(Model model) {
         model.addAttribute("title", "Contacto");
@@ -1,5 +1,6 @@
 package com.example.tiendaperfericos.controllers;
 
+import com.example.tiendaperfericos.dto.PedidoResumenDTO;
 import com.example.tiendaperfericos.entity.DetallePedido;
 import com.example.tiendaperfericos.entity.ItemCarrito;
 import com.example.tiendaperfericos.entity.Pedido;
@@ -7,6 +8,7 @@ import com.example.tiendaperfericos.entity.Usuarios;
 import com.example.tiendaperfericos.services.implement.AuthServiceImpl;
 import com.example.tiendaperfericos.services.implement.CarritoServiceImpl;
 import com.example.tiendaperfericos.services.implement.PedidoServiceImpl;
+import com.example.tiendaperfericos.util.Dinero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -14,7 +16,6 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,9 @@ import java.util.Map;
 @Slf4j
 public class PedidoController {
 
+    private static final Dinero ENVIO_GRATIS_DESDE = new Dinero(5000);
+    private static final Dinero COSTO_ENVIO = new Dinero(599);
+
     private final PedidoServiceImpl pedidoService;
     private final AuthServiceImpl authService;
     private final CarritoServiceImpl carritoService;
@@ -37,7 +41,7 @@ public class PedidoController {
                 return "redirect:/auth/login";
             }
 
-            List<Pedido> pedidos = pedidoService.findByUsuarioId(usuarioId);
+            List<PedidoResumenDTO> pedidos = pedidoService.findResumenesByUsuarioId(usuarioId);
             model.addAttribute("pedidos", pedidos);
 
             return "user/pedidos/historial";
@@ -139,16 +143,16 @@ public class PedidoController {
             model.addAttribute("itemsCarrito", itemsCarrito);
 
           
-            BigDecimal subtotal = calcularSubtotal(itemsCarrito);
-            BigDecimal envio = calcularCostoEnvio(subtotal);
-            BigDecimal total = subtotal.add(envio);
+            Dinero subtotal = calcularSubtotal(itemsCarrito);
+            Dinero envio = calcularCostoEnvio(subtotal);
+            Dinero total = subtotal.mas(envio);
 
            
             Integer totalItems = carritoService.contarItems(usuarioId);
 
-            model.addAttribute("subtotal", subtotal);
-            model.addAttribute("costoEnvio", envio);
-            model.addAttribute("total", total);
+            model.addAttribute("subtotal", subtotal.aDecimal());
+            model.addAttribute("costoEnvio", envio.aDecimal());
+            model.addAttribute("total", total.aDecimal());
             model.addAttribute("totalItems", totalItems != null ? totalItems : 0);
             model.addAttribute("itemsCount", itemsCarrito.size());
 
@@ -166,27 +170,25 @@ public class PedidoController {
             return "redirect:/carrito";
         }
     }
-    private BigDecimal calcularSubtotal(List<ItemCarrito> items) {
+    private Dinero calcularSubtotal(List<ItemCarrito> items) {
         if (items == null || items.isEmpty()) {
-            return BigDecimal.ZERO;
+            return Dinero.CERO;
         }
 
-        return items.stream()
-                .map(item -> {
-                    BigDecimal precio = item.getProducto().getPrecio();
-                    BigDecimal cantidad = BigDecimal.valueOf(item.getCantidad());
-                    return precio.multiply(cantidad);
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long subtotal = 0;
+        for (ItemCarrito item : items) {
+            subtotal = Math.addExact(subtotal, Dinero.subtotal(item.getProducto().getPrecio(), item.getCantidad()));
+        }
+        return new Dinero(subtotal);
     }
 
-    private BigDecimal calcularCostoEnvio(BigDecimal subtotal) {
+    private Dinero calcularCostoEnvio(Dinero subtotal) {
       
-        if (subtotal.compareTo(new BigDecimal("50")) >= 0) {
-            return BigDecimal.ZERO;
+        if (subtotal.compareTo(ENVIO_GRATIS_DESDE) >= 0) {
+            return Dinero.CERO;
         }
        
-        return new BigDecimal("5.99");
+        return COSTO_ENVIO;
     }
 
     private Map<String, String> obtenerDireccionUsuario(Usuarios usuario) {
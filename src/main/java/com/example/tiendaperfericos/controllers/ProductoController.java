@@ -1,18 +1,27 @@
 package com.example.tiendaperfericos.controllers;
 
+import com.example.tiendaperfericos.dto.FacetasTienda;
+import com.example.tiendaperfericos.dto.FiltroTienda;
+import com.example.tiendaperfericos.dto.PaginaProductos;
 import com.example.tiendaperfericos.entity.Producto;
-import com.example.tiendaperfericos.services.implement.CategoriaServiceImpl;
+import com.example.tiendaperfericos.services.implement.AutocompletadoServiceImpl;
+import com.example.tiendaperfericos.services.implement.ImagenServiceImpl;
 import com.example.tiendaperfericos.services.implement.ProductoServiceImpl;
+import com.example.tiendaperfericos.services.implement.RelacionadosServiceImpl;
+import com.example.tiendaperfericos.services.implement.VersionCatalogoServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/productos")
@@ -21,7 +30,14 @@ import java.util.stream.Collectors;
 public class ProductoController {
 
     private final ProductoServiceImpl productoService;
-    private final CategoriaServiceImpl categoriaService;
+    private final AutocompletadoServiceImpl autocompletadoService;
+    private final RelacionadosServiceImpl relacionadosService;
+    private final VersionCatalogoServiceImpl versionCatalogoService;
+    private final ImagenServiceImpl imagenService;
+
+    private static final int TAMANO_PAGINA = 12;
+    private static final int MAX_RELACIONADOS = 4;
+    private static final int MAX_SUGERENCIAS = 8;
 
 
     @GetMapping("/tienda")
@@ -30,45 +46,41 @@ public class ProductoController {
                          @RequestParam(required = false) BigDecimal precioMax,
                          @RequestParam(required = false) String busqueda,
                          @RequestParam(required = false) String orden,
-                         Model model) {
+                         @RequestParam(defaultValue = "false") boolean enStock,
+                         Model model, HttpServletRequest request, HttpServletResponse response) {
 
-        log.info("Parámetros recibidos - categoriaId: {}, precioMin: {}, precioMax: {}, busqueda: {}, orden: {}",
-                categoriaId, precioMin, precioMax, busqueda, orden);
+        log.info("Parámetros recibidos - categoriaId: {}, precioMin: {}, precioMax: {}, busqueda: {}, orden: {}, enStock: {}",
+                categoriaId, precioMin, precioMax, busqueda, orden, enStock);
 
         try {
-            List<Producto> productos;
-
-
-            if (busqueda != null && !busqueda.trim().isEmpty()) {
-                productos = productoService.buscarPorTermino(busqueda.trim());
-                log.info("Búsqueda: '{}' - {} resultados", busqueda, productos.size());
-            } else if (categoriaId != null && precioMin != null && precioMax != null) {
-                productos = productoService.findByCategoriaAndPrecioBetween(categoriaId, precioMin, precioMax);
-                log.info("Filtro categoría {} y precio {}-{} - {} resultados",
-                        categoriaId, precioMin, precioMax, productos.size());
-            } else if (categoriaId != null) {
-                productos = productoService.findByCategoria(categoriaId);
-                log.info("Filtro categoría {} - {} resultados", categoriaId, productos.size());
-            } else if (precioMin != null && precioMax != null) {
-                productos = productoService.findByPrecioBetween(precioMin, precioMax);
-                log.info("Filtro precio {}-{} - {} resultados", precioMin, precioMax, productos.size());
-            } else {
-                productos = productoService.findAll();
-                log.info("Sin filtros - {} productos", productos.size());
+            // Las facetas cuentan todas las categorías, así que la página depende del catálogo completo
+            if (RespuestaCondicional.noModificado(request, response, "tienda",
+                    versionCatalogoService.ultimaModificacion())) {
+                return null;
             }
 
-
-            productos = aplicarOrdenamiento(productos, orden);
+            FiltroTienda filtro = construirFiltro(categoriaId, precioMin, precioMax, busqueda, orden, enStock);
+            PaginaProductos pagina = productoService.findPaginaTienda(filtro, null, TAMANO_PAGINA);
+            FacetasTienda facetas = productoService.calcularFacetas(filtro);
+            log.info("Tienda - {} resultados, primera página de {}", facetas.getTotal(), pagina.getProductos().size());
 
             model.addAttribute("title", "Tienda - PeriTech");
-            model.addAttribute("productos", productos);
-            model.addAttribute("categorias", categoriaService.findAll());
+            model.addAttribute("productos", pagina.getProductos());
+            model.addAttribute("facetas", facetas);
+            model.addAttribute("categoriaNombre", facetas.getCategorias().stream()
+                    .filter(c -> c.getId().equals(categoriaId))
+                    .map(FacetasTienda.FacetaCategoria::getNombre)
+                    .findFirst()
+                    .orElse(null));
             model.addAttribute("categoriaId", categoriaId);
             model.addAttribute("precioMin", precioMin);
             model.addAttribute("precioMax", precioMax);
             model.addAttribute("busqueda", busqueda);
             model.addAttribute("orden", orden);
-            model.addAttribute("resultados", productos.size());
+            model.addAttribute("enStock", enStock);
+            model.addAttribute("resultados", facetas.getTotal());
+            model.addAttribute("siguienteCursor", pagina.getSiguienteCursor());
+            model.addAttribute("hayMas", pagina.isHayMas());
 
             return "user/productos/tienda";
         } catch (Exception e) {
@@ -79,19 +91,59 @@ public class ProductoController {
         }
     }
 
+    @GetMapping("/tienda/mas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> cargarMas(@RequestParam(required = false) Long categoriaId,
+                                                         @RequestParam(required = false) BigDecimal precioMin,
+                                                         @RequestParam(required = false) BigDecimal precioMax,
+                                                         @RequestParam(required = false) String busqueda,
+                                                         @RequestParam(required = false) String orden,
+                                                         @RequestParam(defaultValue = "false") boolean enStock,
+                                                         @RequestParam String cursor) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            FiltroTienda filtro = construirFiltro(categoriaId, precioMin, precioMax, busqueda, orden, enStock);
+            PaginaProductos pagina = productoService.findPaginaTienda(filtro, cursor, TAMANO_PAGINA);
+            pagina.getProductos().forEach(p -> p.setImagenUrl(imagenService.variante(p.getImagenUrl(), "tarjeta")));
+
+            response.put("productos", pagina.getProductos());
+            response.put("siguienteCursor", pagina.getSiguienteCursor());
+            response.put("hayMas", pagina.isHayMas());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error al cargar más productos: {}", e.getMessage());
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/sugerencias")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> sugerencias(@RequestParam(defaultValue = "") String q) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("sugerencias", autocompletadoService.sugerir(q, MAX_SUGERENCIAS));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/detalle/{id}")
-    public String detalleProducto(@PathVariable Long id, Model model) {
+    public String detalleProducto(@PathVariable Long id, Model model,
+                                  HttpServletRequest request, HttpServletResponse response) {
         try {
             Producto producto = productoService.findById(id)
                     .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
 
+            // La página muestra el producto, su categoría y las tarjetas de los relacionados
+            long ultimaModificacion = Math.max(versionCatalogoService.ultimaModificacionProducto(id),
+                    versionCatalogoService.ultimaModificacionCategoria(producto.getCategoria().getId()));
+            for (Long relacionadoId : relacionadosService.relacionados(id, MAX_RELACIONADOS)) {
+                ultimaModificacion = Math.max(ultimaModificacion,
+                        versionCatalogoService.ultimaModificacionProducto(relacionadoId));
+            }
+            if (RespuestaCondicional.noModificado(request, response, "detalle-" + id, ultimaModificacion)) {
+                return null;
+            }
 
-            List<Producto> productosRelacionados = productoService.findByCategoria(
-                            producto.getCategoria().getId()
-                    ).stream()
-                    .filter(p -> !p.getId().equals(producto.getId()))
-                    .limit(4)
-                    .collect(Collectors.toList());
+            List<Producto> productosRelacionados = productoService.findRelacionados(producto, MAX_RELACIONADOS);
 
             model.addAttribute("title", producto.getNombre() + " - PeriTech");
             model.addAttribute("producto", producto);
@@ -104,29 +156,15 @@ public class ProductoController {
         }
     }
 
-
-
-
-    private List<Producto> aplicarOrdenamiento(List<Producto> productos, String orden) {
-        if (orden == null || orden.isEmpty()) {
-            return productos;
-        }
-
-        return productos.stream()
-                .sorted((p1, p2) -> {
-                    switch (orden) {
-                        case "precio-asc":
-                            return p1.getPrecio().compareTo(p2.getPrecio());
-                        case "precio-desc":
-                            return p2.getPrecio().compareTo(p1.getPrecio());
-                        case "nombre-asc":
-                            return p1.getNombre().compareToIgnoreCase(p2.getNombre());
-                        case "nombre-desc":
-                            return p2.getNombre().compareToIgnoreCase(p1.getNombre());
-                        default:
-                            return 0;
-                    }
-                })
-                .collect(Collectors.toList());
+    private FiltroTienda construirFiltro(Long categoriaId, BigDecimal precioMin, BigDecimal precioMax,
+                                         String busqueda, String orden, boolean enStock) {
+        return FiltroTienda.builder()
+                .categoriaId(categoriaId)
+                .precioMin(precioMin)
+                .precioMax(precioMax)
+                .busqueda(busqueda)
+                .orden(orden)
+                .enStock(enStock)
+                .build();
     }
-}
\ No newline at end of file
+}
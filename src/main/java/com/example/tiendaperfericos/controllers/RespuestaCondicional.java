@@ -0,0 +1,58 @@
+package com.example.tiendaperfericos.controllers;
+
+import com.example.tiendaperfericos.config.PaginaCacheFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET condicional para las páginas del catálogo. El ETag combina el sello de versión de los
+ * datos con la sesión del visitante, porque la página incluye su nombre y su token CSRF. Para
+ * los anónimos la caché pública se decide después del render, en {@link PaginaCacheFilter}.
+ */
+final class RespuestaCondicional {
+
+    private static final long MAX_AGE_ANONIMO_SEGUNDOS = 60;
+
+    private RespuestaCondicional() {
+    }
+
+    /**
+     * Devuelve true si el cliente ya tiene esta versión de la página; en ese caso la respuesta
+     * queda como 304 y el controlador no debe renderizar nada.
+     */
+    static boolean noModificado(HttpServletRequest request, HttpServletResponse response,
+                                String pagina, long ultimaModificacion) {
+        // Una página con mensajes flash no se repite, así que no se valida contra la caché
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+        if (flash != null && !flash.isEmpty()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            return false;
+        }
+
+        HttpSession sesion = request.getSession(false);
+        boolean anonimo = sesion == null && request.getRemoteUser() == null;
+        // Privada mientras no se sepa más: el render todavía puede abrir sesión o fijar cookies.
+        // Para anónimos, PaginaCacheFilter la hace pública después si no ha pasado ninguna de las dos
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (anonimo) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+            request.setAttribute(PaginaCacheFilter.CACHE_CONTROL_PUBLICO,
+                    CacheControl.maxAge(MAX_AGE_ANONIMO_SEGUNDOS, TimeUnit.SECONDS).cachePublic().getHeaderValue());
+        }
+
+        String variante = anonimo
+                ? "anonimo"
+                : Integer.toHexString(Objects.hash(sesion != null ? sesion.getId() : null, request.getRemoteUser()));
+        String etag = "W/\"" + pagina + "-" + ultimaModificacion + "-" + variante + "\"";
+        return new ServletWebRequest(request, response).checkNotModified(etag, ultimaModificacion);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Una operación del lote de cambios del carrito: deja el producto con esa cantidad (0 lo quita).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioCarritoDTO {
+
+    private Long productoId;
+    private Integer cantidad;
+}
@@ -0,0 +1,21 @@
+package com.example.tiendaperfericos.dto;
+
+/**
+ * Escritura del catálogo que afecta al índice de búsqueda y al autocompletado. Se publica dentro
+ * de la transacción y se aplica tras el commit; con {@code productoId} null (cambios de
+ * categoría o importaciones) hay que reconstruir todo.
+ */
+public record CambioCatalogo(Long productoId) {
+
+    public static CambioCatalogo producto(Long productoId) {
+        return new CambioCatalogo(productoId);
+    }
+
+    public static CambioCatalogo completo() {
+        return new CambioCatalogo(null);
+    }
+
+    public boolean esCompleto() {
+        return productoId == null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.tiendaperfericos.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Carrito de un visitante sin sesión iniciada. Vive solo en la sesión HTTP (producto y cantidad,
+ * sin precios) y se fusiona con el carrito del usuario al iniciar sesión.
+ */
+public class CarritoInvitado implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String ATRIBUTO_SESION = "carritoInvitado";
+
+    private final LinkedHashMap<Long, Integer> lineas = new LinkedHashMap<>();
+
+    public synchronized int cantidad(Long productoId) {
+        return lineas.getOrDefault(productoId, 0);
+    }
+
+    public synchronized void poner(Long productoId, int cantidad) {
+        if (cantidad <= 0) {
+            lineas.remove(productoId);
+        } else {
+            lineas.put(productoId, cantidad);
+        }
+    }
+
+    public synchronized void quitar(Long productoId) {
+        lineas.remove(productoId);
+    }
+
+    public synchronized void limpiar() {
+        lineas.clear();
+    }
+
+    public synchronized Map<Long, Integer> getLineas() {
+        return new LinkedHashMap<>(lineas);
+    }
+
+    public synchronized int getTotalItems() {
+        return lineas.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public synchronized boolean estaVacio() {
+        return lineas.isEmpty();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Resumen del carrito tras una modificación: lo justo para el contador y el total, sin cargar
+ * el carrito con sus líneas y productos.
+ */
+@Data
+@AllArgsConstructor
+public class CarritoResumenDTO {
+
+    private int totalItems;
+    private int lineas;
+    private BigDecimal total;
+
+    public static CarritoResumenDTO vacio() {
+        return new CarritoResumenDTO(0, 0, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Conteos de la tienda para el filtro actual. Cada faceta ignora su propio filtro:
+ * las categorías cuentan con el rango de precio aplicado pero sin la categoría elegida,
+ * y el histograma cuenta con la categoría aplicada pero sin el rango de precio.
+ */
+@Data
+@AllArgsConstructor
+public class FacetasTienda {
+
+    private List<FacetaCategoria> categorias;
+    private List<RangoPrecio> histograma;
+    private long totalCategorias;
+    private long total;
+
+    @Data
+    @AllArgsConstructor
+    public static class FacetaCategoria {
+        private Long id;
+        private String nombre;
+        private long cantidad;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RangoPrecio {
+        private BigDecimal desde;
+        private BigDecimal hasta;
+        private long cantidad;
+    }
+}
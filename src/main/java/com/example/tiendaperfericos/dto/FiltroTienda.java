@@ -0,0 +1,26 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroTienda {
+
+    private Long categoriaId;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private String busqueda;
+    private boolean enStock;
+    private String orden;
+
+    public String getTermino() {
+        return busqueda != null && !busqueda.trim().isEmpty() ? busqueda.trim() : null;
+    }
+}
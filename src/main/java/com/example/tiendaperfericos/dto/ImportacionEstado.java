@@ -0,0 +1,57 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progreso de una importación de catálogo. Lo actualiza el hilo que procesa el archivo y lo
+ * consulta el panel de administración mientras tanto.
+ */
+@Getter
+public class ImportacionEstado {
+
+    public static final String EN_CURSO = "EN_CURSO";
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String FALLIDA = "FALLIDA";
+
+    private static final int MAX_ERRORES = 50;
+
+    private final String id;
+    private final String archivo;
+    private final LocalDateTime inicio = LocalDateTime.now();
+    private final AtomicLong leidas = new AtomicLong();
+    private final AtomicLong guardadas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final List<String> errores = Collections.synchronizedList(new ArrayList<>());
+    private volatile String estado = EN_CURSO;
+    private volatile LocalDateTime fin;
+
+    public ImportacionEstado(String id, String archivo) {
+        this.id = id;
+        this.archivo = archivo;
+    }
+
+    public void rechazar(long filas, String motivo) {
+        rechazadas.addAndGet(filas);
+        // Solo se guardan los primeros: un archivo mal formado no debe llenar la memoria
+        if (errores.size() < MAX_ERRORES) {
+            errores.add(motivo);
+        }
+    }
+
+    public void terminar(String estado) {
+        this.estado = estado;
+        this.fin = LocalDateTime.now();
+    }
+
+    public List<String> getErrores() {
+        synchronized (errores) {
+            return List.copyOf(errores);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Porción de la tienda obtenida por keyset: los productos de la página y el cursor
+ * opaco con el que se pide la siguiente.
+ */
+@Data
+@AllArgsConstructor
+public class PaginaProductos {
+
+    private List<ProductoResumenDTO> productos;
+    private String siguienteCursor;
+    private boolean hayMas;
+}
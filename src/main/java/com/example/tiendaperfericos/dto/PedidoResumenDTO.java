@@ -0,0 +1,28 @@
+package com.example.tiendaperfericos.dto;
+
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila de los listados de pedidos (admin e historial), sin detalles ni entidades asociadas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoResumenDTO {
+
+    private Long id;
+    private LocalDateTime fechaPedido;
+    private BigDecimal total;
+    private EstadoPedido estado;
+    private String direccionEntrega;
+    private String telefonoContacto;
+    private String usuarioNombre;
+    private String usuarioApellido;
+    private String usuarioEmail;
+}
@@ -0,0 +1,49 @@
+package com.example.tiendaperfericos.dto;
+
+import com.example.tiendaperfericos.entity.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoResumenDTO {
+
+    // Los listados muestran a lo sumo dos líneas de descripción
+    public static final int LONGITUD_DESCRIPCION = 160;
+
+    private Long id;
+    private String nombre;
+    private String descripcion;
+    private BigDecimal precio;
+    private Integer stock;
+    private String imagenUrl;
+    private Long categoriaId;
+    private String categoriaNombre;
+    private boolean activo;
+
+    public static ProductoResumenDTO desde(Producto producto) {
+        return ProductoResumenDTO.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .descripcion(recortar(producto.getDescripcion()))
+                .precio(producto.getPrecio())
+                .stock(producto.getStock())
+                .imagenUrl(producto.getImagenUrl())
+                .categoriaId(producto.getCategoria() != null ? producto.getCategoria().getId() : null)
+                .categoriaNombre(producto.getCategoria() != null ? producto.getCategoria().getNombre() : null)
+                .activo(producto.isActivo())
+                .build();
+    }
+
+    private static String recortar(String descripcion) {
+        return descripcion != null && descripcion.length() > LONGITUD_DESCRIPCION
+                ? descripcion.substring(0, LONGITUD_DESCRIPCION)
+                : descripcion;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Sugerencia del buscador: un producto o una categoría y el enlace al que lleva.
+ */
+@Data
+@AllArgsConstructor
+public class SugerenciaDTO {
+
+    private String tipo;
+    private Long id;
+    private String texto;
+    private String url;
+}
@@ -0,0 +1,25 @@
+package com.example.tiendaperfericos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del listado de usuarios del administrador, sin contraseña ni colecciones.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsuarioResumenDTO {
+
+    private Long id;
+    private String nombre;
+    private String apellido;
+    private String email;
+    private String telefono;
+    private LocalDateTime fechaRegistro;
+    private boolean activo;
+    private String rolNombre;
+}
@@ -1,5 +1,6 @@
 package com.example.tiendaperfericos.entity;
 
+import com.example.tiendaperfericos.util.Dinero;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -12,7 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carritos")
+@Table(name = "carritos", indexes = @Index(name = "idx_carritos_usuario", columnList = "usuario_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,9 +57,11 @@ public class Carrito {
         if (items == null || items.isEmpty()) {
             return BigDecimal.ZERO;
         }
-        return items.stream()
-                .map(ItemCarrito::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (ItemCarrito item : items) {
+            total = Math.addExact(total, item.getSubtotalCentavos());
+        }
+        return Dinero.aDecimal(total);
     }
 
 
@@ -105,8 +108,10 @@ public class Carrito {
         if (items == null || items.isEmpty()) {
             return 0;
         }
-        return items.stream()
-                .mapToInt(ItemCarrito::getCantidad)
-                .sum();
+        int total = 0;
+        for (ItemCarrito item : items) {
+            total += item.getCantidad();
+        }
+        return total;
     }
 }
\ No newline at end of file
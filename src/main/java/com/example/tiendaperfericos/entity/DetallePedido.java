@@ -2,6 +2,7 @@ package com.example.tiendaperfericos.entity;
 
 
 
+import com.example.tiendaperfericos.util.Dinero;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -35,6 +36,10 @@ public class DetallePedido {
     private BigDecimal precioUnitario;
 
     public BigDecimal getSubtotal() {
-        return precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+        return Dinero.aDecimal(getSubtotalCentavos());
+    }
+
+    public long getSubtotalCentavos() {
+        return Dinero.subtotal(precioUnitario, cantidad);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.tiendaperfericos.entity;
 
 
+import com.example.tiendaperfericos.util.Dinero;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -9,7 +10,8 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "items_carrito")
+@Table(name = "items_carrito", uniqueConstraints = @UniqueConstraint(name = "uk_items_carrito_carrito_producto",
+        columnNames = {"carrito_id", "producto_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,6 +36,10 @@ public class ItemCarrito {
     private BigDecimal precioUnitario;
 
     public BigDecimal getSubtotal() {
-        return precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+        return Dinero.aDecimal(getSubtotalCentavos());
+    }
+
+    public long getSubtotalCentavos() {
+        return Dinero.subtotal(precioUnitario, cantidad);
     }
 }
\ No newline at end of file
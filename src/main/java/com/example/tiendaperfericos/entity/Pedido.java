@@ -3,6 +3,7 @@ package com.example.tiendaperfericos.entity;
 
 
 import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import com.example.tiendaperfericos.util.Dinero;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -14,7 +15,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+        @Index(name = "idx_pedidos_usuario_fecha", columnList = "usuario_id, fecha_pedido"),
+        @Index(name = "idx_pedidos_estado_fecha", columnList = "estado, fecha_pedido")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,9 +60,11 @@ public class Pedido {
     }
 
     public BigDecimal calcularTotal() {
-        return detalles.stream()
-                .map(DetallePedido::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (DetallePedido detalle : detalles) {
+            total = Math.addExact(total, detalle.getSubtotalCentavos());
+        }
+        return Dinero.aDecimal(total);
     }
 }
 
@@ -13,7 +13,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = @Index(name = "idx_productos_activo_categoria_precio",
+        columnList = "activo, categoria_id, precio"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,28 @@
+package com.example.tiendaperfericos.entity;
+
+
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "productos_destacados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoDestacado {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "producto_id", nullable = false, unique = true)
+    private Producto producto;
+
+    @Column(nullable = false)
+    private Integer posicion;
+}
@@ -0,0 +1,37 @@
+package com.example.tiendaperfericos.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totales acumulados por producto. Solo los escribe {@code MetricasProductoServiceImpl},
+ * sumando los incrementos que va juntando en memoria.
+ */
+@Entity
+@Table(name = "producto_metricas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoMetricas {
+    @Id
+    @Column(name = "producto_id")
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Long vistas;
+
+    @Column(name = "agregados_carrito", nullable = false)
+    private Long agregadosCarrito;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+}
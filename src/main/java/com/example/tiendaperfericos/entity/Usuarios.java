@@ -12,7 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = @Index(name = "idx_usuarios_rol", columnList = "rol_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
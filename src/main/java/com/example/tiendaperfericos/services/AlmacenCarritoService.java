@@ -0,0 +1,25 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.dto.CarritoResumenDTO;
+import com.example.tiendaperfericos.entity.ItemCarrito;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public interface AlmacenCarritoService {
+    CarritoResumenDTO agregar(Long usuarioId, Long productoId, int cantidad);
+    CarritoResumenDTO actualizar(Long usuarioId, Long productoId, int cantidad);
+    CarritoResumenDTO eliminar(Long usuarioId, Long productoId);
+    CarritoResumenDTO limpiar(Long usuarioId);
+    CarritoResumenDTO fusionar(Long usuarioId, Map<Long, Integer> lineas);
+    CarritoResumenDTO aplicar(Long usuarioId, Map<Long, Integer> cantidades);
+    CarritoResumenDTO resumen(Long usuarioId);
+    List<ItemCarrito> items(Long usuarioId);
+    void volcar();
+    void volcar(Long usuarioId);
+    void descartar(Long usuarioId);
+    <T> T purgarSinCargar(Collection<Long> usuarioIds, Function<Set<Long>, T> borrado);
+}
@@ -0,0 +1,13 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.entity.Producto;
+
+import java.util.List;
+
+public interface BusquedaService {
+    List<Long> buscar(String termino, int limite);
+    void indexar(Producto producto);
+    void eliminar(Long productoId);
+    void reconstruir();
+    int totalIndexados();
+}
@@ -1,5 +1,8 @@
 package com.example.tiendaperfericos.services;
 
+import com.example.tiendaperfericos.dto.CambioCarritoDTO;
+import com.example.tiendaperfericos.dto.CarritoInvitado;
+import com.example.tiendaperfericos.dto.CarritoResumenDTO;
 import com.example.tiendaperfericos.entity.Carrito;
 import com.example.tiendaperfericos.entity.ItemCarrito;
 import com.example.tiendaperfericos.entity.Usuarios;
@@ -11,11 +14,19 @@ public interface CarritoService {
     Optional<Carrito> findByUsuario(Usuarios usuario);
     Optional<Carrito> findByUsuarioId(Long usuarioId);
     Carrito crearCarrito(Usuarios usuario);
-    Carrito agregarProducto(Long usuarioId, Long productoId, Integer cantidad);
-    Carrito actualizarCantidad(Long usuarioId, Long productoId, Integer cantidad);
+    CarritoResumenDTO agregarProducto(Long usuarioId, Long productoId, Integer cantidad);
+    CarritoResumenDTO actualizarCantidad(Long usuarioId, Long productoId, Integer cantidad);
     void eliminarProducto(Long usuarioId, Long productoId);
     void limpiarCarrito(Long usuarioId);
     void eliminarCarrito(Long usuarioId);
     Integer contarItems(Long usuarioId);
+    CarritoResumenDTO obtenerResumen(Long usuarioId);
     List<ItemCarrito> obtenerItemsCarrito(Long usuarioId);
+    int agregarProductoInvitado(CarritoInvitado carrito, Long productoId, Integer cantidad);
+    int actualizarCantidadInvitado(CarritoInvitado carrito, Long productoId, Integer cantidad);
+    List<ItemCarrito> obtenerItemsInvitado(CarritoInvitado carrito);
+    CarritoResumenDTO obtenerResumenInvitado(CarritoInvitado carrito);
+    CarritoResumenDTO aplicarCambios(Long usuarioId, List<CambioCarritoDTO> cambios);
+    CarritoResumenDTO aplicarCambiosInvitado(CarritoInvitado carrito, List<CambioCarritoDTO> cambios);
+    CarritoResumenDTO fusionarCarritoInvitado(Long usuarioId, CarritoInvitado carrito);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.dto.FacetasTienda;
+import com.example.tiendaperfericos.dto.FiltroTienda;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface CatalogoSnapshotService {
+    boolean puedeResolver(FiltroTienda filtro);
+    List<Long> findIdsByPrecioBetween(Long categoriaId, BigDecimal precioMin, BigDecimal precioMax);
+    List<ProductoResumenDTO> findPaginaTienda(FiltroTienda filtro, BigDecimal cursorPrecio, Long cursorId, int limite);
+    FacetasTienda calcularFacetas(FiltroTienda filtro, BigDecimal anchoRango);
+    void programarReconstruccion();
+    void reconstruir();
+}
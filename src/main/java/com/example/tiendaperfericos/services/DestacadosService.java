@@ -0,0 +1,16 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.entity.ProductoDestacado;
+
+import java.util.List;
+
+public interface DestacadosService {
+    List<Producto> obtenerDestacados();
+    void recalcular();
+    void notificarAgotado(Long productoId);
+    void programarRecalculo();
+    List<ProductoDestacado> findFijados();
+    void fijar(Long productoId);
+    void quitar(Long productoId);
+}
@@ -22,4 +22,6 @@ public interface EstadisticasService {
     Long getTotalUsuariosRegistradosPeriodo(int dias);
 
     Map<String, Long> getPedidosPorEstado();
+
+    Map<String, Object> obtenerEstadisticasCache();
 }
\ No newline at end of file
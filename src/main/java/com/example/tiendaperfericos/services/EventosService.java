@@ -0,0 +1,10 @@
+package com.example.tiendaperfericos.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface EventosService {
+    SseEmitter suscribir(Long usuarioId, String sesionInvitado, Long productoId, Integer itemsCarrito);
+    void publicarCarrito(Long usuarioId, int totalItems);
+    void publicarCarritoInvitado(String sesionId, int totalItems);
+    void publicarStock(Long productoId, int stock);
+}
@@ -0,0 +1,15 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ExportacionService {
+    long exportarProductos(OutputStream salida, boolean jsonLines) throws IOException;
+    long exportarPedidos(OutputStream salida, boolean jsonLines, LocalDate desde, LocalDate hasta,
+                         EstadoPedido estado) throws IOException;
+    long exportarDetalles(OutputStream salida, boolean jsonLines, LocalDate desde, LocalDate hasta,
+                          EstadoPedido estado) throws IOException;
+}
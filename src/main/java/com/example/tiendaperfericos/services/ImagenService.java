@@ -0,0 +1,6 @@
+package com.example.tiendaperfericos.services;
+
+public interface ImagenService {
+    String variante(String imagenUrl, String tamano);
+    void generarVariantes();
+}
@@ -0,0 +1,13 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.dto.ImportacionEstado;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ImportacionService {
+    ImportacionEstado iniciar(MultipartFile archivo);
+    Optional<ImportacionEstado> findById(String id);
+    List<ImportacionEstado> findRecientes();
+}
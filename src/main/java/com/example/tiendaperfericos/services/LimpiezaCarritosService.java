@@ -0,0 +1,5 @@
+package com.example.tiendaperfericos.services;
+
+public interface LimpiezaCarritosService {
+    int purgarAbandonados();
+}
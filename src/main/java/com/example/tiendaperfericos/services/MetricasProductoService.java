@@ -0,0 +1,12 @@
+package com.example.tiendaperfericos.services;
+
+import com.example.tiendaperfericos.entity.ProductoMetricas;
+
+import java.util.List;
+
+public interface MetricasProductoService {
+    void registrarVista(Long productoId);
+    void registrarAgregadoCarrito(Long productoId);
+    void volcar();
+    List<ProductoMetricas> findMasVistos();
+}
@@ -1,5 +1,6 @@
 package com.example.tiendaperfericos.services;
 
+import com.example.tiendaperfericos.dto.PedidoResumenDTO;
 import com.example.tiendaperfericos.entity.DetallePedido;
 import com.example.tiendaperfericos.entity.Pedido;
 import com.example.tiendaperfericos.entity.emun.EstadoPedido;
@@ -13,6 +14,8 @@ public interface PedidoService {
     List<Pedido> findAll();
     Optional<Pedido> findById(Long id);
     List<Pedido> findByUsuarioId(Long usuarioId);
+    List<PedidoResumenDTO> findResumenes();
+    List<PedidoResumenDTO> findResumenesByUsuarioId(Long usuarioId);
     List<Pedido> findByEstado(EstadoPedido estado);
     Pedido crearPedidoDesdeCarrito(Long usuarioId, String direccionEntrega, String telefonoContacto);
     Pedido actualizarEstado(Long pedidoId, EstadoPedido nuevoEstado);
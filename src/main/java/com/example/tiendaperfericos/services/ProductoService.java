@@ -1,5 +1,9 @@
 package com.example.tiendaperfericos.services;
 
+import com.example.tiendaperfericos.dto.FacetasTienda;
+import com.example.tiendaperfericos.dto.FiltroTienda;
+import com.example.tiendaperfericos.dto.PaginaProductos;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
 import com.example.tiendaperfericos.entity.Producto;
 
 import java.math.BigDecimal;
@@ -8,6 +12,7 @@ import java.util.Optional;
 
 public interface ProductoService {
     List<Producto> findAll();
+    List<ProductoResumenDTO> findResumenesActivos();
     Optional<Producto> findById(Long id);
     Producto save(Producto producto);
     void deleteById(Long id);
@@ -23,4 +28,7 @@ public interface ProductoService {
     void actualizarStock(Long productoId, Integer cantidad);
     Long countProductosActivos();
     List<Producto> findProductosDestacados();
+    List<Producto> findRelacionados(Producto producto, int limite);
+    PaginaProductos findPaginaTienda(FiltroTienda filtro, String cursor, int tamano);
+    FacetasTienda calcularFacetas(FiltroTienda filtro);
 }
\ No newline at end of file
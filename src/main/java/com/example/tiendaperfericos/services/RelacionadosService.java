@@ -0,0 +1,10 @@
+package com.example.tiendaperfericos.services;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RelacionadosService {
+    List<Long> relacionados(Long productoId, int limite);
+    void registrarPedido(Collection<Long> productoIds);
+    void reconstruir();
+}
@@ -0,0 +1,12 @@
+package com.example.tiendaperfericos.services;
+
+public interface ReservaStockService {
+    void reservar(Long productoId, Long usuarioId, int cantidad, int stock);
+    int reservarHasta(Long productoId, Long usuarioId, int cantidad, int stock);
+    void liberar(Long productoId, Long usuarioId);
+    int reservada(Long productoId, Long usuarioId);
+    void restaurar(Long productoId, Long usuarioId, int cantidad);
+    void renovar(Long usuarioId);
+    void confirmar(Long usuarioId);
+    int disponible(Long productoId, Long usuarioId, int stock);
+}
@@ -1,5 +1,6 @@
 package com.example.tiendaperfericos.services;
 
+import com.example.tiendaperfericos.dto.UsuarioResumenDTO;
 import com.example.tiendaperfericos.entity.Usuarios;
 
 import java.util.List;
@@ -14,6 +15,7 @@ public interface UsuarioService {
     boolean existsByEmail(String email);
     List<Usuarios> findByRol(String rolNombre);
     List<Usuarios> findUsuariosActivos();
+    List<UsuarioResumenDTO> findResumenesActivos();
     Usuarios registrarUsuarios(Usuarios Usuarioss, String rolNombre);
     void cambiarEstadoUsuarios(Long id, boolean activo);
     Long countByRol(String rolNombre);
@@ -0,0 +1,9 @@
+package com.example.tiendaperfericos.services;
+
+public interface VersionCatalogoService {
+    long ultimaModificacion();
+    long ultimaModificacionCategoria(Long categoriaId);
+    long ultimaModificacionProducto(Long productoId);
+    void registrarCambio(Long categoriaId, Long productoId);
+    void registrarCambioGeneral();
+}
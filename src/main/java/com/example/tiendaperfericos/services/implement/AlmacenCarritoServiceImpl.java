@@ -0,0 +1,518 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.CarritoRepository;
+import com.example.tiendaperfericos.Repostory.ItemCarritoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.Repostory.UsuarioRepository;
+import com.example.tiendaperfericos.dto.CarritoResumenDTO;
+import com.example.tiendaperfericos.entity.Carrito;
+import com.example.tiendaperfericos.entity.ItemCarrito;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.entity.Usuarios;
+import com.example.tiendaperfericos.services.AlmacenCarritoService;
+import com.example.tiendaperfericos.services.ProductoService;
+import com.example.tiendaperfericos.services.ReservaStockService;
+import com.example.tiendaperfericos.util.Dinero;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Carritos vivos en memoria con escritura diferida. Cada usuario tiene su carrito cargado una
+ * sola vez desde la base de datos; las modificaciones se aplican en memoria y solo marcan las
+ * líneas cambiadas, que se vuelcan cada pocos segundos en un único lote por tabla. Varios
+ * cambios sobre la misma línea entre dos volcados se quedan en una sola escritura.
+ * <p>
+ * Supone una única instancia de la aplicación: otra instancia no vería los cambios pendientes.
+ * Al apagar se vuelca todo; una caída abrupta puede perder como mucho el último intervalo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlmacenCarritoServiceImpl implements AlmacenCarritoService {
+
+    // Los JOIN descartan carritos o productos borrados entretanto sin que falle el lote entero.
+    // La tabla derivada da nombre a la fila nueva en lugar de VALUES(), obsoleto desde MySQL 8.0.20
+    private static final String SQL_UPSERT = """
+            INSERT INTO items_carrito (carrito_id, producto_id, cantidad, precio_unitario)
+            SELECT * FROM (
+                SELECT c.id AS carrito_id, p.id AS producto_id, ? AS cantidad, ? AS precio_unitario
+                FROM carritos c JOIN productos p ON p.id = ? WHERE c.id = ?
+            ) AS nuevo
+            ON DUPLICATE KEY UPDATE cantidad = nuevo.cantidad, precio_unitario = nuevo.precio_unitario
+            """;
+    private static final String SQL_BORRAR = "DELETE FROM items_carrito WHERE carrito_id = ? AND producto_id = ?";
+    private static final String SQL_FECHA = "UPDATE carritos SET fecha_actualizacion = ? WHERE id = ?";
+
+    private final CarritoRepository carritoRepository;
+    private final ItemCarritoRepository itemCarritoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ProductoRepository productoRepository;
+    private final ProductoService productoService;
+    private final ReservaStockService reservaStockService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${tienda.carrito.inactividad-min:30}")
+    private long inactividadMinutos;
+
+    private final Map<Long, CarritoVivo> carritos = new ConcurrentHashMap<>();
+    // Se incrementa tras cada purga de carritos abandonados; ver obtener()
+    private final AtomicLong purgas = new AtomicLong();
+
+    // Precio en centavos: el resumen tras cada cambio suma longs sin crear BigDecimal
+    private record Linea(int cantidad, long precioCentavos) {
+    }
+
+    /**
+     * Estado de un carrito. Se accede siempre con su propio monitor; {@code carritoId} es null
+     * mientras el usuario no tenga fila en {@code carritos}.
+     */
+    private static class CarritoVivo {
+        Long carritoId;
+        final Map<Long, Linea> lineas = new LinkedHashMap<>();
+        // Productos cuya línea cambió desde el último volcado (si ya no está en lineas, se borra)
+        final Set<Long> pendientes = new HashSet<>();
+        LocalDateTime modificado;
+        long ultimoAcceso = System.currentTimeMillis();
+        boolean descartado;
+
+        boolean tienePendientes() {
+            return !pendientes.isEmpty() || modificado != null;
+        }
+    }
+
+    // Lo que se sacó de un carrito en un volcado, para devolverlo si la escritura falla
+    private record Volcado(CarritoVivo vivo, Set<Long> productos, LocalDateTime modificado) {
+    }
+
+    @Override
+    public CarritoResumenDTO agregar(Long usuarioId, Long productoId, int cantidad) {
+        Producto producto = productoActivo(productoId);
+        return modificar(usuarioId, true, vivo -> {
+            Linea actual = vivo.lineas.get(productoId);
+            int nuevaCantidad = actual != null ? actual.cantidad() + cantidad : cantidad;
+            reservaStockService.reservar(productoId, usuarioId, nuevaCantidad, producto.getStock());
+            vivo.lineas.put(productoId, new Linea(nuevaCantidad,
+                    actual != null ? actual.precioCentavos() : Dinero.centavos(producto.getPrecio())));
+            vivo.pendientes.add(productoId);
+            return resumen(vivo);
+        });
+    }
+
+    @Override
+    public CarritoResumenDTO actualizar(Long usuarioId, Long productoId, int cantidad) {
+        if (cantidad <= 0) {
+            return eliminar(usuarioId, productoId);
+        }
+        Producto producto = productoActivo(productoId);
+        return modificar(usuarioId, false, vivo -> {
+            Linea actual = vivo.lineas.get(productoId);
+            if (actual == null) {
+                throw new RuntimeException("Producto no encontrado en el carrito");
+            }
+            reservaStockService.reservar(productoId, usuarioId, cantidad, producto.getStock());
+            vivo.lineas.put(productoId, new Linea(cantidad, actual.precioCentavos()));
+            vivo.pendientes.add(productoId);
+            return resumen(vivo);
+        });
+    }
+
+    @Override
+    public CarritoResumenDTO eliminar(Long usuarioId, Long productoId) {
+        return modificar(usuarioId, false, vivo -> {
+            if (vivo.lineas.remove(productoId) != null) {
+                vivo.pendientes.add(productoId);
+                reservaStockService.liberar(productoId, usuarioId);
+            }
+            return resumen(vivo);
+        });
+    }
+
+    @Override
+    public CarritoResumenDTO limpiar(Long usuarioId) {
+        return modificar(usuarioId, false, vivo -> {
+            vivo.pendientes.addAll(vivo.lineas.keySet());
+            vivo.lineas.keySet().forEach(productoId -> reservaStockService.liberar(productoId, usuarioId));
+            vivo.lineas.clear();
+            return CarritoResumenDTO.vacio();
+        });
+    }
+
+    /**
+     * Suma un conjunto de líneas de una vez (el carrito de invitado al iniciar sesión). Los
+     * productos se leen en una sola consulta y cada cantidad se recorta a lo que se pueda
+     * reservar en lugar de rechazar toda la fusión; los productos desactivados se ignoran.
+     */
+    @Override
+    public CarritoResumenDTO fusionar(Long usuarioId, Map<Long, Integer> lineas) {
+        if (lineas.isEmpty()) {
+            return resumen(usuarioId);
+        }
+        Map<Long, Producto> productos = productosActivos(lineas.keySet());
+        return modificar(usuarioId, true, vivo -> {
+            lineas.forEach((productoId, cantidad) -> {
+                Producto producto = productos.get(productoId);
+                if (producto == null || cantidad == null || cantidad <= 0) {
+                    return;
+                }
+                Linea actual = vivo.lineas.get(productoId);
+                int actualCantidad = actual != null ? actual.cantidad() : 0;
+                int reservada = reservaStockService.reservarHasta(productoId, usuarioId,
+                        actualCantidad + cantidad, producto.getStock());
+                int nuevaCantidad = Math.max(reservada, actualCantidad);
+                if (nuevaCantidad <= 0 || nuevaCantidad == actualCantidad) {
+                    return;
+                }
+                vivo.lineas.put(productoId, new Linea(nuevaCantidad,
+                        actual != null ? actual.precioCentavos() : Dinero.centavos(producto.getPrecio())));
+                vivo.pendientes.add(productoId);
+            });
+            return resumen(vivo);
+        });
+    }
+
+    /**
+     * Lote de cambios del carrito: cada producto queda con la cantidad indicada (0 lo quita).
+     * Los productos se leen en una sola consulta y el lote es atómico: si alguna cantidad no
+     * se puede reservar no se aplica ninguna. Las líneas tocadas salen juntas en el siguiente
+     * volcado.
+     */
+    @Override
+    public CarritoResumenDTO aplicar(Long usuarioId, Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return resumen(usuarioId);
+        }
+        Map<Long, Producto> productos = productosActivos(cantidades.keySet());
+        cantidades.forEach((productoId, cantidad) -> {
+            if (cantidad > 0 && !productos.containsKey(productoId)) {
+                throw new RuntimeException("Producto no encontrado o inactivo: " + productoId);
+            }
+        });
+        return modificar(usuarioId, true, vivo -> {
+            // Reservas primero; si una falla, cada producto tocado vuelve exactamente a la reserva
+            // que tenía (la línea puede no coincidir si caducó), y se suelta si no tenía ninguna
+            Map<Long, Integer> anteriores = new HashMap<>();
+            try {
+                cantidades.forEach((productoId, cantidad) -> {
+                    if (cantidad > 0) {
+                        anteriores.put(productoId, reservaStockService.reservada(productoId, usuarioId));
+                        reservaStockService.reservar(productoId, usuarioId, cantidad,
+                                productos.get(productoId).getStock());
+                    }
+                });
+            } catch (RuntimeException e) {
+                anteriores.forEach((productoId, anterior) ->
+                        reservaStockService.restaurar(productoId, usuarioId, anterior));
+                throw e;
+            }
+
+            cantidades.forEach((productoId, cantidad) -> {
+                Linea actual = vivo.lineas.get(productoId);
+                if (cantidad <= 0) {
+                    if (actual != null) {
+                        vivo.lineas.remove(productoId);
+                        vivo.pendientes.add(productoId);
+                        reservaStockService.liberar(productoId, usuarioId);
+                    }
+                } else if (actual == null || actual.cantidad() != cantidad) {
+                    vivo.lineas.put(productoId, new Linea(cantidad,
+                            actual != null ? actual.precioCentavos()
+                                    : Dinero.centavos(productos.get(productoId).getPrecio())));
+                    vivo.pendientes.add(productoId);
+                }
+            });
+            return resumen(vivo);
+        });
+    }
+
+    @Override
+    public CarritoResumenDTO resumen(Long usuarioId) {
+        return leer(usuarioId, AlmacenCarritoServiceImpl::resumen);
+    }
+
+    /**
+     * Líneas del carrito como {@link ItemCarrito} sin persistir, con el producto de la caché.
+     * Las líneas de productos desactivados no se muestran.
+     */
+    @Override
+    public List<ItemCarrito> items(Long usuarioId) {
+        Map<Long, Linea> lineas = leer(usuarioId, vivo -> new LinkedHashMap<>(vivo.lineas));
+        List<ItemCarrito> items = new ArrayList<>(lineas.size());
+        lineas.forEach((productoId, linea) -> productoService.findById(productoId).ifPresent(producto ->
+                items.add(ItemCarrito.builder()
+                        .producto(producto)
+                        .cantidad(linea.cantidad())
+                        .precioUnitario(Dinero.aDecimal(linea.precioCentavos()))
+                        .build())));
+        return items;
+    }
+
+    @Scheduled(fixedDelayString = "${tienda.carrito.volcado-ms:2000}",
+            initialDelayString = "${tienda.carrito.volcado-ms:2000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        volcar();
+    }
+
+    /**
+     * Vuelca todos los carritos con cambios y suelta de memoria los que llevan tiempo sin uso
+     * y no tienen nada pendiente.
+     */
+    @Override
+    public synchronized void volcar() {
+        long limite = System.currentTimeMillis() - inactividadMinutos * 60_000;
+        List<CarritoVivo> conCambios = new ArrayList<>();
+        carritos.forEach((usuarioId, vivo) -> {
+            synchronized (vivo) {
+                if (vivo.tienePendientes()) {
+                    conCambios.add(vivo);
+                } else if (vivo.ultimoAcceso < limite) {
+                    vivo.descartado = true;
+                    carritos.remove(usuarioId, vivo);
+                }
+            }
+        });
+        try {
+            escribir(conCambios);
+        } catch (RuntimeException e) {
+            // Ya registrado y devuelto a pendientes: se reintenta en el siguiente volcado
+        }
+    }
+
+    /**
+     * Vuelca en el momento el carrito de un usuario. El checkout lo llama antes de leer el
+     * carrito de la base de datos para ver los últimos cambios.
+     */
+    @Override
+    public synchronized void volcar(Long usuarioId) {
+        CarritoVivo vivo = carritos.get(usuarioId);
+        if (vivo != null) {
+            escribir(List.of(vivo));
+        }
+    }
+
+    /**
+     * Olvida el carrito en memoria, con sus cambios pendientes; el siguiente acceso lo vuelve a
+     * cargar. Para cuando la base de datos pasa a mandar, p. ej. tras confirmar un pedido.
+     */
+    @Override
+    public void descartar(Long usuarioId) {
+        CarritoVivo vivo = carritos.remove(usuarioId);
+        if (vivo != null) {
+            synchronized (vivo) {
+                vivo.descartado = true;
+            }
+        }
+    }
+
+    /**
+     * Para borrar carritos abandonados sin carreras con su carga: de los usuarios dados, los que
+     * no tienen el carrito en memoria quedan bloqueados (nadie puede cargarlo ni modificarlo)
+     * mientras {@code borrado} se ejecuta con ese conjunto. Los que ya estaban cargados se
+     * saltan: su estado bueno es el de memoria. Al terminar, quien esperaba vuelve a cargar.
+     */
+    @Override
+    public <T> T purgarSinCargar(Collection<Long> usuarioIds, Function<Set<Long>, T> borrado) {
+        // Un único marcador descartado para todo el tramo; su monitor retiene a quien lo encuentre
+        CarritoVivo bloqueo = new CarritoVivo();
+        synchronized (bloqueo) {
+            Set<Long> bloqueados = new HashSet<>();
+            for (Long usuarioId : usuarioIds) {
+                if (carritos.putIfAbsent(usuarioId, bloqueo) == null) {
+                    bloqueados.add(usuarioId);
+                }
+            }
+            try {
+                return borrado.apply(bloqueados);
+            } finally {
+                purgas.incrementAndGet();
+                bloqueo.descartado = true;
+                bloqueados.forEach(usuarioId -> carritos.remove(usuarioId, bloqueo));
+            }
+        }
+    }
+
+    private void escribir(List<CarritoVivo> carritosConCambios) {
+        List<Volcado> volcados = new ArrayList<>();
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> borrados = new ArrayList<>();
+        List<Object[]> fechas = new ArrayList<>();
+
+        for (CarritoVivo vivo : carritosConCambios) {
+            synchronized (vivo) {
+                if (vivo.descartado || !vivo.tienePendientes()) {
+                    continue;
+                }
+                for (Long productoId : vivo.pendientes) {
+                    Linea linea = vivo.lineas.get(productoId);
+                    if (linea != null) {
+                        upserts.add(new Object[]{linea.cantidad(), Dinero.aDecimal(linea.precioCentavos()), productoId,
+                                vivo.carritoId});
+                    } else {
+                        borrados.add(new Object[]{vivo.carritoId, productoId});
+                    }
+                }
+                if (vivo.modificado != null) {
+                    fechas.add(new Object[]{Timestamp.valueOf(vivo.modificado), vivo.carritoId});
+                }
+                volcados.add(new Volcado(vivo, new HashSet<>(vivo.pendientes), vivo.modificado));
+                vivo.pendientes.clear();
+                vivo.modificado = null;
+            }
+        }
+        if (volcados.isEmpty()) {
+            return;
+        }
+
+        // Transacción propia aunque se llame desde el checkout: lo volcado no depende de su resultado
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                if (!upserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(SQL_UPSERT, upserts);
+                }
+                if (!borrados.isEmpty()) {
+                    jdbcTemplate.batchUpdate(SQL_BORRAR, borrados);
+                }
+                if (!fechas.isEmpty()) {
+                    jdbcTemplate.batchUpdate(SQL_FECHA, fechas);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Error al volcar {} carritos: {}", volcados.size(), e.getMessage());
+            // El estado en memoria sigue siendo el bueno: basta con volver a marcarlo como pendiente
+            for (Volcado volcado : volcados) {
+                synchronized (volcado.vivo()) {
+                    volcado.vivo().pendientes.addAll(volcado.productos());
+                    if (volcado.vivo().modificado == null) {
+                        volcado.vivo().modificado = volcado.modificado();
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    private <T> T modificar(Long usuarioId, boolean crear, Function<CarritoVivo, T> cambio) {
+        while (true) {
+            CarritoVivo vivo = obtener(usuarioId);
+            synchronized (vivo) {
+                // Soltado por el volcado entre obtenerlo y bloquearlo: se vuelve a cargar
+                if (vivo.descartado) {
+                    continue;
+                }
+                if (vivo.carritoId == null) {
+                    if (!crear) {
+                        throw new RuntimeException("Carrito no encontrado");
+                    }
+                    vivo.carritoId = crearCarrito(usuarioId);
+                }
+                T resultado = cambio.apply(vivo);
+                vivo.modificado = LocalDateTime.now();
+                vivo.ultimoAcceso = System.currentTimeMillis();
+                return resultado;
+            }
+        }
+    }
+
+    private <T> T leer(Long usuarioId, Function<CarritoVivo, T> lectura) {
+        while (true) {
+            CarritoVivo vivo = obtener(usuarioId);
+            synchronized (vivo) {
+                if (vivo.descartado) {
+                    continue;
+                }
+                vivo.ultimoAcceso = System.currentTimeMillis();
+                return lectura.apply(vivo);
+            }
+        }
+    }
+
+    // La carga va fuera del mapa para no bloquear otros carritos mientras lee la base de datos;
+    // si dos peticiones cargan a la vez se queda la primera que llegue al mapa. Si entretanto
+    // terminó una purga, lo leído puede apuntar a filas ya borradas y se vuelve a cargar.
+    private CarritoVivo obtener(Long usuarioId) {
+        while (true) {
+            CarritoVivo vivo = carritos.get(usuarioId);
+            if (vivo != null) {
+                return vivo;
+            }
+            long purgasAntes = purgas.get();
+            CarritoVivo cargado = cargar(usuarioId);
+            vivo = carritos.compute(usuarioId, (id, actual) ->
+                    actual != null ? actual : purgas.get() == purgasAntes ? cargado : null);
+            if (vivo != null) {
+                return vivo;
+            }
+        }
+    }
+
+    private CarritoVivo cargar(Long usuarioId) {
+        CarritoVivo vivo = new CarritoVivo();
+        carritoRepository.findIdByUsuarioId(usuarioId).ifPresent(carritoId -> {
+            vivo.carritoId = carritoId;
+            for (Object[] fila : itemCarritoRepository.findLineasByCarritoId(carritoId)) {
+                vivo.lineas.put((Long) fila[0], new Linea(((Number) fila[1]).intValue(),
+                        Dinero.centavos((BigDecimal) fila[2])));
+            }
+        });
+        return vivo;
+    }
+
+    private Long crearCarrito(Long usuarioId) {
+        Usuarios usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        return carritoRepository.save(Carrito.builder().usuario(usuario).build()).getId();
+    }
+
+    private Map<Long, Producto> productosActivos(Collection<Long> ids) {
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : productoRepository.findByIdInAndActivoTrue(ids)) {
+            productos.put(producto.getId(), producto);
+        }
+        return productos;
+    }
+
+    private Producto productoActivo(Long productoId) {
+        return productoService.findById(productoId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado o inactivo"));
+    }
+
+    private static CarritoResumenDTO resumen(CarritoVivo vivo) {
+        int totalItems = 0;
+        long total = 0;
+        for (Linea linea : vivo.lineas.values()) {
+            totalItems += linea.cantidad();
+            total = Math.addExact(total, Math.multiplyExact(linea.precioCentavos(), linea.cantidad()));
+        }
+        return new CarritoResumenDTO(totalItems, vivo.lineas.size(), Dinero.aDecimal(total));
+    }
+}
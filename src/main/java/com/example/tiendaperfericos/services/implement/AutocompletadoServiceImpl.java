@@ -0,0 +1,430 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.dto.SugerenciaDTO;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import com.example.tiendaperfericos.services.AutocompletadoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocompletado del buscador sobre un trie comprimido (radix) de nombres de productos y
+ * categorías. Cada nombre se inserta desde cada inicio de palabra, y cada nodo guarda ya
+ * calculadas las mejores sugerencias de su subárbol por popularidad (unidades vendidas),
+ * así que responder cuesta lo que recorrer el prefijo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AutocompletadoServiceImpl implements AutocompletadoService {
+
+    private static final int MAX_SUGERENCIAS = 10;
+    private static final int MAX_PALABRAS = 8;
+    private static final String PRODUCTO = "producto";
+    private static final String CATEGORIA = "categoria";
+
+    private final ProductoRepository productoRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ranuraPorClave = new HashMap<>();
+    private final ArrayDeque<Integer> ranurasLibres = new ArrayDeque<>();
+    private final Map<Long, Long> ventasPorProducto = new HashMap<>();
+    private Sugerencia[] sugerencias = new Sugerencia[256];
+    private int totalRanuras;
+    private Nodo raiz = new Nodo(new char[0]);
+
+    private final Comparator<Integer> porPopularidad = (a, b) -> {
+        Sugerencia x = sugerencias[a];
+        Sugerencia y = sugerencias[b];
+        int orden = Long.compare(y.popularidad, x.popularidad);
+        return orden != 0 ? orden : x.texto.compareToIgnoreCase(y.texto);
+    };
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    // Las ventas cambian con cada pedido; la popularidad se refresca reconstruyendo de vez en cuando
+    @Scheduled(fixedDelayString = "${tienda.autocompletado.refresco-ms:900000}",
+            initialDelayString = "${tienda.autocompletado.refresco-ms:900000}")
+    public void refrescarPopularidad() {
+        reconstruir();
+    }
+
+    @Override
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        String clave = normalizar(prefijo);
+        if (clave.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] mejores = mejoresPara(clave);
+            List<SugerenciaDTO> resultado = new ArrayList<>(Math.min(limite, mejores.length));
+            for (int i = 0; i < mejores.length && resultado.size() < limite; i++) {
+                resultado.add(sugerencias[mejores[i]].aDto());
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reconstruir() {
+        List<Producto> productos = productoRepository.findProductosActivos();
+        Map<Long, Long> ventas = new HashMap<>();
+        for (Object[] fila : detallePedidoRepository.findVentasPorProducto(EstadoPedido.CANCELADO)) {
+            ventas.put((Long) fila[0], ((Number) fila[1]).longValue());
+        }
+
+        Map<Long, String> nombresCategoria = new HashMap<>();
+        Map<Long, Long> popularidadCategoria = new HashMap<>();
+        for (Producto producto : productos) {
+            Long categoriaId = producto.getCategoria().getId();
+            nombresCategoria.put(categoriaId, producto.getCategoria().getNombre());
+            popularidadCategoria.merge(categoriaId, ventas.getOrDefault(producto.getId(), 0L) + 1, Long::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            raiz = new Nodo(new char[0]);
+            sugerencias = new Sugerencia[256];
+            totalRanuras = 0;
+            ranurasLibres.clear();
+            ranuraPorClave.clear();
+            ventasPorProducto.clear();
+            ventasPorProducto.putAll(ventas);
+            nombresCategoria.forEach((id, nombre) ->
+                    agregar(CATEGORIA, id, nombre, popularidadCategoria.get(id)));
+            for (Producto producto : productos) {
+                agregar(PRODUCTO, producto.getId(), producto.getNombre(),
+                        ventas.getOrDefault(producto.getId(), 0L));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Autocompletado reconstruido: {} sugerencias", ranuraPorClave.size());
+    }
+
+    @Override
+    public void indexar(Producto producto) {
+        if (producto == null || producto.getId() == null) {
+            return;
+        }
+        if (!producto.isActivo() || producto.getCategoria() == null || !producto.getCategoria().isActiva()) {
+            eliminar(producto.getId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            long ventas = ventasPorProducto.getOrDefault(producto.getId(), 0L);
+            quitar(PRODUCTO, producto.getId());
+            agregar(PRODUCTO, producto.getId(), producto.getNombre(), ventas);
+            if (!ranuraPorClave.containsKey(CATEGORIA + ":" + producto.getCategoria().getId())) {
+                agregar(CATEGORIA, producto.getCategoria().getId(), producto.getCategoria().getNombre(), ventas + 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminar(Long productoId) {
+        lock.writeLock().lock();
+        try {
+            quitar(PRODUCTO, productoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return String.join(" ", BusquedaServiceImpl.tokenizar(texto));
+    }
+
+    // Claves desde cada inicio de palabra: "mouse logitech g502", "logitech g502", "g502"
+    private static Set<String> clavesDe(String texto) {
+        List<String> palabras = BusquedaServiceImpl.tokenizar(texto);
+        Set<String> claves = new LinkedHashSet<>();
+        for (int i = 0; i < Math.min(palabras.size(), MAX_PALABRAS); i++) {
+            claves.add(String.join(" ", palabras.subList(i, palabras.size())));
+        }
+        return claves;
+    }
+
+    private void agregar(String tipo, Long id, String texto, long popularidad) {
+        Set<String> claves = clavesDe(texto);
+        if (claves.isEmpty()) {
+            return;
+        }
+        int ranura;
+        if (ranurasLibres.isEmpty()) {
+            ranura = totalRanuras++;
+            if (ranura == sugerencias.length) {
+                sugerencias = Arrays.copyOf(sugerencias, ranura * 2);
+            }
+        } else {
+            ranura = ranurasLibres.pop();
+        }
+        sugerencias[ranura] = new Sugerencia(tipo, id, texto, popularidad, claves.toArray(new String[0]));
+        ranuraPorClave.put(tipo + ":" + id, ranura);
+        for (String clave : claves) {
+            insertar(clave, ranura);
+        }
+    }
+
+    private void quitar(String tipo, Long id) {
+        Integer ranura = ranuraPorClave.remove(tipo + ":" + id);
+        if (ranura == null) {
+            return;
+        }
+        for (String clave : sugerencias[ranura].claves) {
+            borrar(clave, ranura);
+        }
+        sugerencias[ranura] = null;
+        ranurasLibres.push(ranura);
+    }
+
+    private int[] mejoresPara(String prefijo) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < prefijo.length()) {
+            int pos = nodo.posicionHijo(prefijo.charAt(i));
+            if (pos < 0) {
+                return Nodo.VACIO;
+            }
+            Nodo hijo = nodo.hijos[pos];
+            int comun = hijo.prefijoComun(prefijo, i);
+            if (i + comun == prefijo.length()) {
+                // El prefijo termina dentro de la etiqueta: todo el subárbol del hijo coincide
+                return hijo.mejores;
+            }
+            if (comun < hijo.etiqueta.length) {
+                return Nodo.VACIO;
+            }
+            nodo = hijo;
+            i += comun;
+        }
+        return nodo.mejores;
+    }
+
+    private void insertar(String clave, int ranura) {
+        List<Nodo> camino = new ArrayList<>();
+        camino.add(raiz);
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < clave.length()) {
+            int pos = nodo.posicionHijo(clave.charAt(i));
+            if (pos < 0) {
+                Nodo hoja = new Nodo(clave.substring(i).toCharArray());
+                nodo.insertarHijo(-pos - 1, hoja);
+                nodo = hoja;
+                camino.add(nodo);
+                break;
+            }
+            Nodo hijo = nodo.hijos[pos];
+            int comun = hijo.prefijoComun(clave, i);
+            if (comun < hijo.etiqueta.length) {
+                // Se parte la arista en el punto donde la clave deja de coincidir
+                Nodo intermedio = new Nodo(Arrays.copyOf(hijo.etiqueta, comun));
+                hijo.etiqueta = Arrays.copyOfRange(hijo.etiqueta, comun, hijo.etiqueta.length);
+                intermedio.hijos = new Nodo[]{hijo};
+                intermedio.mejores = hijo.mejores;
+                nodo.hijos[pos] = intermedio;
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            i += comun;
+            camino.add(nodo);
+        }
+        nodo.entradas = agregarOrdenado(nodo.entradas, ranura);
+        recalcular(camino);
+    }
+
+    private void borrar(String clave, int ranura) {
+        List<Nodo> camino = new ArrayList<>();
+        camino.add(raiz);
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < clave.length()) {
+            int pos = nodo.posicionHijo(clave.charAt(i));
+            if (pos < 0) {
+                return;
+            }
+            Nodo hijo = nodo.hijos[pos];
+            int comun = hijo.prefijoComun(clave, i);
+            if (comun < hijo.etiqueta.length) {
+                return;
+            }
+            nodo = hijo;
+            i += comun;
+            camino.add(nodo);
+        }
+        nodo.entradas = quitarValor(nodo.entradas, ranura);
+
+        // Se podan hojas vacías y se fusionan nodos de paso para mantener el trie comprimido
+        for (int k = camino.size() - 1; k > 0; k--) {
+            Nodo actual = camino.get(k);
+            Nodo padre = camino.get(k - 1);
+            if (actual.entradas.length == 0 && actual.hijos.length == 0) {
+                padre.quitarHijo(actual);
+            } else if (actual.entradas.length == 0 && actual.hijos.length == 1) {
+                Nodo unico = actual.hijos[0];
+                char[] etiqueta = Arrays.copyOf(actual.etiqueta, actual.etiqueta.length + unico.etiqueta.length);
+                System.arraycopy(unico.etiqueta, 0, etiqueta, actual.etiqueta.length, unico.etiqueta.length);
+                unico.etiqueta = etiqueta;
+                padre.reemplazarHijo(actual, unico);
+            }
+        }
+        recalcular(camino);
+    }
+
+    private void recalcular(List<Nodo> camino) {
+        for (int k = camino.size() - 1; k >= 0; k--) {
+            Nodo nodo = camino.get(k);
+            List<Integer> candidatos = new ArrayList<>();
+            for (int ranura : nodo.entradas) {
+                candidatos.add(ranura);
+            }
+            for (Nodo hijo : nodo.hijos) {
+                for (int ranura : hijo.mejores) {
+                    candidatos.add(ranura);
+                }
+            }
+            candidatos.sort(porPopularidad);
+            nodo.mejores = candidatos.stream()
+                    .distinct()
+                    .limit(MAX_SUGERENCIAS)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    private static int[] agregarOrdenado(int[] valores, int valor) {
+        int pos = Arrays.binarySearch(valores, valor);
+        if (pos >= 0) {
+            return valores;
+        }
+        int insercion = -pos - 1;
+        int[] resultado = new int[valores.length + 1];
+        System.arraycopy(valores, 0, resultado, 0, insercion);
+        resultado[insercion] = valor;
+        System.arraycopy(valores, insercion, resultado, insercion + 1, valores.length - insercion);
+        return resultado;
+    }
+
+    private static int[] quitarValor(int[] valores, int valor) {
+        int pos = Arrays.binarySearch(valores, valor);
+        if (pos < 0) {
+            return valores;
+        }
+        int[] resultado = new int[valores.length - 1];
+        System.arraycopy(valores, 0, resultado, 0, pos);
+        System.arraycopy(valores, pos + 1, resultado, pos, valores.length - pos - 1);
+        return resultado;
+    }
+
+    private static final class Sugerencia {
+        private final String tipo;
+        private final Long id;
+        private final String texto;
+        private final long popularidad;
+        private final String[] claves;
+
+        Sugerencia(String tipo, Long id, String texto, long popularidad, String[] claves) {
+            this.tipo = tipo;
+            this.id = id;
+            this.texto = texto;
+            this.popularidad = popularidad;
+            this.claves = claves;
+        }
+
+        SugerenciaDTO aDto() {
+            String url = PRODUCTO.equals(tipo)
+                    ? "/productos/detalle/" + id
+                    : "/productos/tienda?categoriaId=" + id;
+            return new SugerenciaDTO(tipo, id, texto, url);
+        }
+    }
+
+    /**
+     * Nodo del trie: la etiqueta es el tramo de la arista que llega a él; los hijos se
+     * mantienen ordenados por su primer carácter.
+     */
+    private static final class Nodo {
+        private static final int[] VACIO = new int[0];
+        private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+        private char[] etiqueta;
+        private Nodo[] hijos = SIN_HIJOS;
+        private int[] entradas = VACIO;
+        private int[] mejores = VACIO;
+
+        Nodo(char[] etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        int posicionHijo(char c) {
+            int bajo = 0;
+            int alto = hijos.length - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                char actual = hijos[medio].etiqueta[0];
+                if (actual < c) {
+                    bajo = medio + 1;
+                } else if (actual > c) {
+                    alto = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -(bajo + 1);
+        }
+
+        int prefijoComun(String clave, int desde) {
+            int k = 0;
+            while (k < etiqueta.length && desde + k < clave.length() && etiqueta[k] == clave.charAt(desde + k)) {
+                k++;
+            }
+            return k;
+        }
+
+        void insertarHijo(int pos, Nodo hijo) {
+            Nodo[] nuevos = new Nodo[hijos.length + 1];
+            System.arraycopy(hijos, 0, nuevos, 0, pos);
+            nuevos[pos] = hijo;
+            System.arraycopy(hijos, pos, nuevos, pos + 1, hijos.length - pos);
+            hijos = nuevos;
+        }
+
+        void quitarHijo(Nodo hijo) {
+            int pos = posicionHijo(hijo.etiqueta[0]);
+            if (pos < 0 || hijos[pos] != hijo) {
+                return;
+            }
+            Nodo[] nuevos = new Nodo[hijos.length - 1];
+            System.arraycopy(hijos, 0, nuevos, 0, pos);
+            System.arraycopy(hijos, pos + 1, nuevos, pos, hijos.length - pos - 1);
+            hijos = nuevos.length == 0 ? SIN_HIJOS : nuevos;
+        }
+
+        void reemplazarHijo(Nodo anterior, Nodo nuevo) {
+            int pos = posicionHijo(anterior.etiqueta[0]);
+            if (pos >= 0 && hijos[pos] == anterior) {
+                hijos[pos] = nuevo;
+            }
+        }
+    }
+}
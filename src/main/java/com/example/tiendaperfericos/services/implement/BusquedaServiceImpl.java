@@ -0,0 +1,256 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.services.BusquedaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre, descripción y categoría de los productos activos.
+ * Los términos se normalizan sin tildes y en minúsculas; cada término guarda sus documentos en
+ * arreglos primitivos ordenados, y la consulta exige todos los términos (por prefijo) y ordena
+ * por relevancia ponderando el campo donde aparecen.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BusquedaServiceImpl implements BusquedaService {
+
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_CATEGORIA = 2;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final float FACTOR_PREFIJO = 0.5f;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private final ProductoRepository productoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, ListaPostings> indice = new TreeMap<>();
+    private final Map<Long, Integer> docPorProducto = new HashMap<>();
+    private final ArrayDeque<Integer> docsLibres = new ArrayDeque<>();
+    private long[] productoPorDoc = new long[256];
+    private String[][] terminosPorDoc = new String[256][];
+    private int totalDocs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    @Override
+    public void reconstruir() {
+        List<Producto> productos = productoRepository.findProductosActivos();
+        lock.writeLock().lock();
+        try {
+            indice.clear();
+            docPorProducto.clear();
+            docsLibres.clear();
+            totalDocs = 0;
+            for (Producto producto : productos) {
+                agregarDocumento(producto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de búsqueda reconstruido: {} productos, {} términos", productos.size(), indice.size());
+    }
+
+    @Override
+    public void indexar(Producto producto) {
+        if (producto == null || producto.getId() == null) {
+            return;
+        }
+        if (!producto.isActivo() || producto.getCategoria() == null || !producto.getCategoria().isActiva()) {
+            eliminar(producto.getId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            quitarDocumento(producto.getId());
+            agregarDocumento(producto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminar(Long productoId) {
+        lock.writeLock().lock();
+        try {
+            quitarDocumento(productoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> buscar(String termino, int limite) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenizar(termino)));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            float[] puntuacion = new float[totalDocs];
+            int[] coincidencias = new int[totalDocs];
+            int documentosIndexados = docPorProducto.size();
+
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                SortedMap<String, ListaPostings> terminos = indice.subMap(token, token + Character.MAX_VALUE);
+                for (Map.Entry<String, ListaPostings> entrada : terminos.entrySet()) {
+                    ListaPostings postings = entrada.getValue();
+                    float idf = (float) Math.log(1.0 + (double) documentosIndexados / postings.tamano);
+                    float factor = entrada.getKey().length() == token.length() ? 1f : FACTOR_PREFIJO;
+                    for (int j = 0; j < postings.tamano; j++) {
+                        int doc = postings.docs[j];
+                        if (coincidencias[doc] == i) {
+                            coincidencias[doc] = i + 1;
+                        } else if (coincidencias[doc] != i + 1) {
+                            continue;
+                        }
+                        puntuacion[doc] += postings.pesos[j] * idf * factor;
+                    }
+                }
+            }
+
+            List<Integer> encontrados = new ArrayList<>();
+            for (int doc = 0; doc < totalDocs; doc++) {
+                if (coincidencias[doc] == tokens.size()) {
+                    encontrados.add(doc);
+                }
+            }
+            encontrados.sort((a, b) -> Float.compare(puntuacion[b], puntuacion[a]));
+
+            List<Long> resultado = new ArrayList<>(Math.min(limite, encontrados.size()));
+            for (int i = 0; i < encontrados.size() && i < limite; i++) {
+                resultado.add(productoPorDoc[encontrados.get(i)]);
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int totalIndexados() {
+        lock.readLock().lock();
+        try {
+            return docPorProducto.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = MARCAS_DIACRITICAS
+                .matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void agregarDocumento(Producto producto) {
+        Map<String, Integer> pesos = new HashMap<>();
+        acumular(pesos, producto.getNombre(), PESO_NOMBRE);
+        acumular(pesos, producto.getCategoria() != null ? producto.getCategoria().getNombre() : null, PESO_CATEGORIA);
+        acumular(pesos, producto.getDescripcion(), PESO_DESCRIPCION);
+
+        int doc = docsLibres.isEmpty() ? nuevoDoc() : docsLibres.pop();
+        productoPorDoc[doc] = producto.getId();
+        terminosPorDoc[doc] = pesos.keySet().toArray(new String[0]);
+        docPorProducto.put(producto.getId(), doc);
+
+        for (Map.Entry<String, Integer> entrada : pesos.entrySet()) {
+            indice.computeIfAbsent(entrada.getKey(), t -> new ListaPostings()).agregar(doc, entrada.getValue());
+        }
+    }
+
+    private void quitarDocumento(Long productoId) {
+        Integer doc = docPorProducto.remove(productoId);
+        if (doc == null) {
+            return;
+        }
+        for (String termino : terminosPorDoc[doc]) {
+            ListaPostings postings = indice.get(termino);
+            if (postings != null && postings.quitar(doc) && postings.tamano == 0) {
+                indice.remove(termino);
+            }
+        }
+        terminosPorDoc[doc] = null;
+        docsLibres.push(doc);
+    }
+
+    private int nuevoDoc() {
+        if (totalDocs == productoPorDoc.length) {
+            productoPorDoc = Arrays.copyOf(productoPorDoc, totalDocs * 2);
+            terminosPorDoc = Arrays.copyOf(terminosPorDoc, totalDocs * 2);
+        }
+        return totalDocs++;
+    }
+
+    private static void acumular(Map<String, Integer> pesos, String texto, int peso) {
+        for (String token : tokenizar(texto)) {
+            pesos.merge(token, peso, Integer::sum);
+        }
+    }
+
+    /**
+     * Documentos de un término ordenados ascendentemente, con su peso acumulado en paralelo.
+     */
+    private static final class ListaPostings {
+        private int[] docs = new int[4];
+        private int[] pesos = new int[4];
+        private int tamano;
+
+        void agregar(int doc, int peso) {
+            int pos = Arrays.binarySearch(docs, 0, tamano, doc);
+            if (pos >= 0) {
+                pesos[pos] = peso;
+                return;
+            }
+            pos = -pos - 1;
+            if (tamano == docs.length) {
+                docs = Arrays.copyOf(docs, tamano * 2);
+                pesos = Arrays.copyOf(pesos, tamano * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, tamano - pos);
+            System.arraycopy(pesos, pos, pesos, pos + 1, tamano - pos);
+            docs[pos] = doc;
+            pesos[pos] = peso;
+            tamano++;
+        }
+
+        boolean quitar(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, tamano, doc);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(docs, pos + 1, docs, pos, tamano - pos - 1);
+            System.arraycopy(pesos, pos + 1, pesos, pos, tamano - pos - 1);
+            tamano--;
+            return true;
+        }
+    }
+}
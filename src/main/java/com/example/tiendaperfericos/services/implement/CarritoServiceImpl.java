@@ -1,20 +1,29 @@
 package com.example.tiendaperfericos.services.implement;
 
 import com.example.tiendaperfericos.Repostory.CarritoRepository;
-import com.example.tiendaperfericos.Repostory.ItemCarritoRepository;
-import com.example.tiendaperfericos.Repostory.ProductoRepository;
-import com.example.tiendaperfericos.Repostory.UsuarioRepository;
+import com.example.tiendaperfericos.dto.CambioCarritoDTO;
+import com.example.tiendaperfericos.dto.CarritoInvitado;
+import com.example.tiendaperfericos.dto.CarritoResumenDTO;
 import com.example.tiendaperfericos.entity.Carrito;
 import com.example.tiendaperfericos.entity.ItemCarrito;
 import com.example.tiendaperfericos.entity.Producto;
 import com.example.tiendaperfericos.entity.Usuarios;
+import com.example.tiendaperfericos.services.AlmacenCarritoService;
 import com.example.tiendaperfericos.services.CarritoService;
+import com.example.tiendaperfericos.services.EventosService;
+import com.example.tiendaperfericos.services.MetricasProductoService;
+import com.example.tiendaperfericos.services.ProductoService;
+import com.example.tiendaperfericos.services.ReservaStockService;
+import com.example.tiendaperfericos.util.Dinero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -22,94 +31,37 @@ import java.util.Optional;
 @Slf4j
 public class CarritoServiceImpl implements CarritoService {
 
-    private final CarritoRepository carritoRepository;
-    private final ItemCarritoRepository itemCarritoRepository;
-    private final ProductoRepository productoRepository;
-    private final UsuarioRepository usuarioRepository;
+    private static final int MAX_CAMBIOS_LOTE = 100;
 
+    private final CarritoRepository carritoRepository;
+    private final AlmacenCarritoService almacenCarritoService;
+    private final MetricasProductoService metricasProductoService;
+    private final EventosService eventosService;
+    private final ProductoService productoService;
+    private final ReservaStockService reservaStockService;
+
+    /**
+     * Las modificaciones van al almacén en memoria, que las vuelca a la base de datos en
+     * segundo plano; aquí solo se valida y se devuelve el resumen ya actualizado.
+     */
     @Override
-    @Transactional
-    public Carrito agregarProducto(Long usuarioId, Long productoId, Integer cantidad) {
-        try {
-            log.info("🔵 INICIANDO agregarProducto - usuarioId: {}, productoId: {}, cantidad: {}",
-                    usuarioId, productoId, cantidad);
-
-            Carrito carrito = obtenerOCrearCarrito(usuarioId);
-            log.info("🛒 Carrito obtenido/creado: {}", carrito.getId());
-
-            Producto producto = productoRepository.findByIdAndActivoTrue(productoId)
-                    .orElseThrow(() -> {
-                        log.error("❌ Producto no encontrado: {}", productoId);
-                        return new RuntimeException("Producto no encontrado o inactivo");
-                    });
-            log.info(" Producto encontrado: {} - Stock: {}", producto.getNombre(), producto.getStock());
-
-            if (producto.getStock() < cantidad) {
-                log.error(" Stock insuficiente: {} < {}", producto.getStock(), cantidad);
-                throw new RuntimeException("Stock insuficiente. Disponible: " + producto.getStock());
-            }
-
-            // Buscar item existente
-            Optional<ItemCarrito> itemExistente = itemCarritoRepository.findByCarritoAndProducto(carrito, producto);
-            log.info("🔍 Item existente encontrado: {}", itemExistente.isPresent());
-
-            if (itemExistente.isPresent()) {
-                ItemCarrito item = itemExistente.get();
-                item.setCantidad(item.getCantidad() + cantidad);
-                ItemCarrito savedItem = itemCarritoRepository.save(item);
-                log.info("Producto actualizado en carrito: {} - Nueva cantidad: {}",
-                        producto.getNombre(), savedItem.getCantidad());
-            } else {
-                ItemCarrito nuevoItem = ItemCarrito.builder()
-                        .carrito(carrito)
-                        .producto(producto)
-                        .cantidad(cantidad)
-                        .precioUnitario(producto.getPrecio())
-                        .build();
-
-                ItemCarrito savedItem = itemCarritoRepository.save(nuevoItem);
-                log.info(" Nuevo producto agregado al carrito: {} - Cantidad: {}",
-                        producto.getNombre(), savedItem.getCantidad());
-            }
-
-            Carrito carritoActualizado = carritoRepository.findById(carrito.getId())
-                    .orElseThrow(() -> new RuntimeException("Error al recargar carrito"));
-
-            log.info("Carrito actualizado exitosamente. Total items: {}",
-                    carritoActualizado.getItems() != null ? carritoActualizado.getItems().size() : 0);
-
-            return carritoActualizado;
-
-        } catch (Exception e) {
-            log.error(" ERROR en agregarProducto: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al agregar producto al carrito: " + e.getMessage());
+    public CarritoResumenDTO agregarProducto(Long usuarioId, Long productoId, Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new RuntimeException("La cantidad debe ser mayor que cero");
         }
+        CarritoResumenDTO resumen = almacenCarritoService.agregar(usuarioId, productoId, cantidad);
+        metricasProductoService.registrarAgregadoCarrito(productoId);
+        eventosService.publicarCarrito(usuarioId, resumen.getTotalItems());
+        return resumen;
     }
 
     @Override
-    @Transactional
-    public Carrito actualizarCantidad(Long usuarioId, Long productoId, Integer cantidad) {
+    public CarritoResumenDTO actualizarCantidad(Long usuarioId, Long productoId, Integer cantidad) {
         try {
-            Carrito carrito = obtenerCarrito(usuarioId);
-            Producto producto = productoRepository.findByIdAndActivoTrue(productoId)
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-            if (cantidad <= 0) {
-
-                itemCarritoRepository.findByCarritoAndProducto(carrito, producto)
-                        .ifPresent(itemCarritoRepository::delete);
-            } else {
-                if (producto.getStock() < cantidad) {
-                    throw new RuntimeException("Stock insuficiente. Disponible: " + producto.getStock());
-                }
-
-                ItemCarrito item = itemCarritoRepository.findByCarritoAndProducto(carrito, producto)
-                        .orElseThrow(() -> new RuntimeException("Producto no encontrado en el carrito"));
-                item.setCantidad(cantidad);
-                itemCarritoRepository.save(item);
-            }
-
-            return carritoRepository.save(carrito);
+            CarritoResumenDTO resumen = almacenCarritoService.actualizar(usuarioId, productoId,
+                    cantidad != null ? cantidad : 0);
+            eventosService.publicarCarrito(usuarioId, resumen.getTotalItems());
+            return resumen;
         } catch (Exception e) {
             log.error("Error en actualizarCantidad: {}", e.getMessage(), e);
             throw new RuntimeException("Error al actualizar cantidad: " + e.getMessage());
@@ -117,17 +69,10 @@ public class CarritoServiceImpl implements CarritoService {
     }
 
     @Override
-    @Transactional
     public void eliminarProducto(Long usuarioId, Long productoId) {
         try {
-            Carrito carrito = obtenerCarrito(usuarioId);
-            Producto producto = productoRepository.findById(productoId)
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-            itemCarritoRepository.findByCarritoAndProducto(carrito, producto)
-                    .ifPresent(itemCarritoRepository::delete);
-
-            carritoRepository.save(carrito);
+            CarritoResumenDTO resumen = almacenCarritoService.eliminar(usuarioId, productoId);
+            eventosService.publicarCarrito(usuarioId, resumen.getTotalItems());
         } catch (Exception e) {
             log.error("Error en eliminarProducto: {}", e.getMessage(), e);
             throw new RuntimeException("Error al eliminar producto: " + e.getMessage());
@@ -135,18 +80,127 @@ public class CarritoServiceImpl implements CarritoService {
     }
 
     @Override
-    @Transactional
     public void limpiarCarrito(Long usuarioId) {
         try {
-            Carrito carrito = obtenerCarrito(usuarioId);
-            itemCarritoRepository.deleteByCarritoId(carrito.getId());
-            carritoRepository.save(carrito);
+            almacenCarritoService.limpiar(usuarioId);
+            eventosService.publicarCarrito(usuarioId, 0);
         } catch (Exception e) {
             log.error("Error en limpiarCarrito: {}", e.getMessage(), e);
             throw new RuntimeException("Error al limpiar carrito: " + e.getMessage());
         }
     }
 
+    /**
+     * Carrito de invitado: se valida contra el producto en caché, descontando las reservas de
+     * los usuarios, y solo cambia la sesión, sin escribir nada en la base de datos. Los
+     * invitados no reservan: lo hacen al iniciar sesión, cuando su carrito se fusiona.
+     */
+    @Override
+    public int agregarProductoInvitado(CarritoInvitado carrito, Long productoId, Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new RuntimeException("La cantidad debe ser mayor que cero");
+        }
+        Producto producto = productoService.findById(productoId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado o inactivo"));
+        synchronized (carrito) {
+            int nuevaCantidad = carrito.cantidad(productoId) + cantidad;
+            int disponible = reservaStockService.disponible(productoId, null, producto.getStock());
+            if (disponible < nuevaCantidad) {
+                throw new RuntimeException("Stock insuficiente. Disponible: " + disponible);
+            }
+            carrito.poner(productoId, nuevaCantidad);
+            return carrito.getTotalItems();
+        }
+    }
+
+    @Override
+    public int actualizarCantidadInvitado(CarritoInvitado carrito, Long productoId, Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            carrito.quitar(productoId);
+            return carrito.getTotalItems();
+        }
+        Producto producto = productoService.findById(productoId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        int disponible = reservaStockService.disponible(productoId, null, producto.getStock());
+        if (disponible < cantidad) {
+            throw new RuntimeException("Stock insuficiente. Disponible: " + disponible);
+        }
+        synchronized (carrito) {
+            if (carrito.cantidad(productoId) == 0) {
+                throw new RuntimeException("Producto no encontrado en el carrito");
+            }
+            carrito.poner(productoId, cantidad);
+            return carrito.getTotalItems();
+        }
+    }
+
+    /**
+     * Varios cambios de cantidad en una sola llamada (la página del carrito los agrupa); se
+     * aplican todos o ninguno.
+     */
+    @Override
+    public CarritoResumenDTO aplicarCambios(Long usuarioId, List<CambioCarritoDTO> cambios) {
+        CarritoResumenDTO resumen = almacenCarritoService.aplicar(usuarioId, cantidadesPorProducto(cambios));
+        eventosService.publicarCarrito(usuarioId, resumen.getTotalItems());
+        return resumen;
+    }
+
+    @Override
+    public CarritoResumenDTO aplicarCambiosInvitado(CarritoInvitado carrito, List<CambioCarritoDTO> cambios) {
+        Map<Long, Integer> cantidades = cantidadesPorProducto(cambios);
+        cantidades.forEach((productoId, cantidad) -> {
+            if (cantidad > 0) {
+                Producto producto = productoService.findById(productoId)
+                        .orElseThrow(() -> new RuntimeException("Producto no encontrado o inactivo: " + productoId));
+                int disponible = reservaStockService.disponible(productoId, null, producto.getStock());
+                if (disponible < cantidad) {
+                    throw new RuntimeException("Stock insuficiente para " + producto.getNombre()
+                            + ". Disponible: " + disponible);
+                }
+            }
+        });
+        synchronized (carrito) {
+            cantidades.forEach(carrito::poner);
+        }
+        return obtenerResumenInvitado(carrito);
+    }
+
+    @Override
+    public List<ItemCarrito> obtenerItemsInvitado(CarritoInvitado carrito) {
+        List<ItemCarrito> items = new ArrayList<>();
+        carrito.getLineas().forEach((productoId, cantidad) -> productoService.findById(productoId)
+                .ifPresent(producto -> items.add(ItemCarrito.builder()
+                        .producto(producto)
+                        .cantidad(cantidad)
+                        .precioUnitario(producto.getPrecio())
+                        .build())));
+        return items;
+    }
+
+    @Override
+    public CarritoResumenDTO obtenerResumenInvitado(CarritoInvitado carrito) {
+        List<ItemCarrito> items = obtenerItemsInvitado(carrito);
+        int totalItems = 0;
+        long total = 0;
+        for (ItemCarrito item : items) {
+            totalItems += item.getCantidad();
+            total = Math.addExact(total, item.getSubtotalCentavos());
+        }
+        return new CarritoResumenDTO(totalItems, items.size(), Dinero.aDecimal(total));
+    }
+
+    /**
+     * Pasa el carrito de invitado al carrito del usuario en una sola modificación del almacén,
+     * que lo vuelca en el siguiente lote.
+     */
+    @Override
+    public CarritoResumenDTO fusionarCarritoInvitado(Long usuarioId, CarritoInvitado carrito) {
+        CarritoResumenDTO resumen = almacenCarritoService.fusionar(usuarioId, carrito.getLineas());
+        carrito.limpiar();
+        eventosService.publicarCarrito(usuarioId, resumen.getTotalItems());
+        return resumen;
+    }
+
 
     @Override
     @Transactional(readOnly = true)
@@ -166,15 +220,15 @@ public class CarritoServiceImpl implements CarritoService {
         Carrito carrito = Carrito.builder()
                 .usuario(usuarios)
                 .build();
-        return carritoRepository.save(carrito);
+        Carrito guardado = carritoRepository.save(carrito);
+        almacenCarritoService.descartar(usuarios.getId());
+        return guardado;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Integer contarItems(Long usuarioId) {
         try {
-            Integer count = itemCarritoRepository.countItemsByUsuarioId(usuarioId);
-            return count != null ? count : 0;
+            return almacenCarritoService.resumen(usuarioId).getTotalItems();
         } catch (Exception e) {
             log.error("Error al contar items: {}", e.getMessage());
             return 0;
@@ -182,28 +236,36 @@ public class CarritoServiceImpl implements CarritoService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    public CarritoResumenDTO obtenerResumen(Long usuarioId) {
+        return almacenCarritoService.resumen(usuarioId);
+    }
+
+    @Override
     public List<ItemCarrito> obtenerItemsCarrito(Long usuarioId) {
-        return itemCarritoRepository.findByUsuarioId(usuarioId);
+        // Quien vuelve a su carrito o al checkout mantiene sus reservas
+        reservaStockService.renovar(usuarioId);
+        return almacenCarritoService.items(usuarioId);
     }
 
     @Override
     @Transactional
     public void eliminarCarrito(Long usuarioId) {
+        almacenCarritoService.descartar(usuarioId);
         carritoRepository.findByUsuarioId(usuarioId).ifPresent(carritoRepository::delete);
     }
 
-    private Carrito obtenerCarrito(Long usuarioId) {
-        return carritoRepository.findByUsuarioId(usuarioId)
-                .orElseThrow(() -> new RuntimeException("Carrito no encontrado"));
-    }
-
-    private Carrito obtenerOCrearCarrito(Long usuarioId) {
-        return carritoRepository.findByUsuarioId(usuarioId)
-                .orElseGet(() -> {
-                    Usuarios usuario = usuarioRepository.findById(usuarioId)
-                            .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-                    return crearCarrito(usuario);
-                });
+    // Si un producto se repite en el lote manda la última operación
+    private static Map<Long, Integer> cantidadesPorProducto(List<CambioCarritoDTO> cambios) {
+        if (cambios == null || cambios.size() > MAX_CAMBIOS_LOTE) {
+            throw new RuntimeException("El lote debe tener entre 0 y " + MAX_CAMBIOS_LOTE + " cambios");
+        }
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        for (CambioCarritoDTO cambio : cambios) {
+            if (cambio.getProductoId() == null) {
+                throw new RuntimeException("Falta el producto en un cambio del carrito");
+            }
+            cantidades.put(cambio.getProductoId(), cambio.getCantidad() != null ? Math.max(cambio.getCantidad(), 0) : 0);
+        }
+        return cantidades;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.dto.FacetasTienda;
+import com.example.tiendaperfericos.dto.FiltroTienda;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
+import com.example.tiendaperfericos.services.CatalogoSnapshotService;
+import com.example.tiendaperfericos.util.Transacciones;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Copia de solo lectura del catálogo activo en arreglos paralelos (id, precio en centavos,
+ * categoría, stock) más un índice ordenado por (precio, id). Los rangos de precio se resuelven
+ * con búsqueda binaria sobre ese índice. Cada escritura del catálogo programa una
+ * reconstrucción tras el commit y la nueva copia se publica de una vez.
+ * <p>
+ * La copia se comparte entre hilos, así que solo guarda valores inmutables (nunca entidades
+ * gestionadas) y cada consulta devuelve resúmenes nuevos que el llamador puede modificar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoSnapshotServiceImpl implements CatalogoSnapshotService {
+
+    private final ProductoRepository productoRepository;
+
+    private final AtomicReference<Snapshot> actual = new AtomicReference<>();
+    private final AtomicBoolean reconstruccionPendiente = new AtomicBoolean();
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "catalogo-snapshot");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean puedeResolver(FiltroTienda filtro) {
+        String orden = filtro.getOrden();
+        return actual.get() != null
+                && filtro.getTermino() == null
+                && (orden == null || !orden.startsWith("nombre"));
+    }
+
+    @Override
+    public List<Long> findIdsByPrecioBetween(Long categoriaId, BigDecimal precioMin, BigDecimal precioMax) {
+        Snapshot snapshot = actual.get();
+        if (snapshot == null) {
+            return null;
+        }
+        int desde = snapshot.primeroDesde(precioMin != null ? aCentavos(precioMin, RoundingMode.CEILING) : Long.MIN_VALUE);
+        int hasta = snapshot.primeroDespuesDe(precioMax != null ? aCentavos(precioMax, RoundingMode.FLOOR) : Long.MAX_VALUE);
+        List<Long> resultado = new ArrayList<>(Math.max(hasta - desde, 0));
+        for (int i = desde; i < hasta; i++) {
+            int pos = snapshot.porPrecio[i];
+            if (categoriaId == null || snapshot.categorias[pos] == categoriaId) {
+                resultado.add(snapshot.ids[pos]);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<ProductoResumenDTO> findPaginaTienda(FiltroTienda filtro, BigDecimal cursorPrecio, Long cursorId, int limite) {
+        Snapshot snapshot = actual.get();
+        long minimo = filtro.getPrecioMin() != null ? aCentavos(filtro.getPrecioMin(), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maximo = filtro.getPrecioMax() != null ? aCentavos(filtro.getPrecioMax(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+        String orden = filtro.getOrden() != null ? filtro.getOrden() : "";
+        List<ProductoResumenDTO> resultado = new ArrayList<>(limite);
+
+        if (orden.startsWith("precio")) {
+            boolean ascendente = orden.endsWith("-asc");
+            int desde = snapshot.primeroDesde(minimo);
+            int hasta = snapshot.primeroDespuesDe(maximo);
+            if (cursorId != null) {
+                long precioCursor = aCentavos(cursorPrecio, RoundingMode.HALF_UP);
+                if (ascendente) {
+                    desde = Math.max(desde, snapshot.contarAntesDe(precioCursor, cursorId, true));
+                } else {
+                    hasta = Math.min(hasta, snapshot.contarAntesDe(precioCursor, cursorId, false));
+                }
+            }
+            for (int k = 0; k < hasta - desde && resultado.size() < limite; k++) {
+                int pos = snapshot.porPrecio[ascendente ? desde + k : hasta - 1 - k];
+                if (coincide(snapshot, pos, filtro)) {
+                    resultado.add(snapshot.resumen(pos));
+                }
+            }
+        } else {
+            int desde = cursorId != null ? snapshot.primeroConIdMayor(cursorId) : 0;
+            for (int pos = desde; pos < snapshot.ids.length && resultado.size() < limite; pos++) {
+                long precio = snapshot.preciosCentavos[pos];
+                if (precio >= minimo && precio <= maximo && coincide(snapshot, pos, filtro)) {
+                    resultado.add(snapshot.resumen(pos));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public FacetasTienda calcularFacetas(FiltroTienda filtro, BigDecimal anchoRango) {
+        Snapshot snapshot = actual.get();
+        long minimo = filtro.getPrecioMin() != null ? aCentavos(filtro.getPrecioMin(), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maximo = filtro.getPrecioMax() != null ? aCentavos(filtro.getPrecioMax(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+        long anchoCentavos = aCentavos(anchoRango, RoundingMode.HALF_UP);
+        Long categoriaId = filtro.getCategoriaId();
+
+        Map<Long, long[]> porCategoria = new HashMap<>();
+        TreeMap<Long, long[]> histograma = new TreeMap<>();
+        long totalCategorias = 0;
+        long total = 0;
+
+        for (int pos = 0; pos < snapshot.ids.length; pos++) {
+            if (filtro.isEnStock() && snapshot.stock[pos] <= 0) {
+                continue;
+            }
+            long precio = snapshot.preciosCentavos[pos];
+            long categoria = snapshot.categorias[pos];
+            boolean enRango = precio >= minimo && precio <= maximo;
+            boolean categoriaCoincide = categoriaId == null || categoriaId == categoria;
+
+            long[] conteoCategoria = porCategoria.computeIfAbsent(categoria, c -> new long[1]);
+            if (enRango) {
+                conteoCategoria[0]++;
+                totalCategorias++;
+            }
+            if (categoriaCoincide) {
+                histograma.computeIfAbsent(Math.floorDiv(precio, anchoCentavos), r -> new long[1])[0]++;
+            }
+            if (enRango && categoriaCoincide) {
+                total++;
+            }
+        }
+
+        List<FacetasTienda.FacetaCategoria> categorias = new ArrayList<>(porCategoria.size());
+        porCategoria.forEach((id, conteo) ->
+                categorias.add(new FacetasTienda.FacetaCategoria(id, snapshot.nombresCategoria.get(id), conteo[0])));
+        categorias.sort(Comparator.comparing(FacetasTienda.FacetaCategoria::getNombre, String.CASE_INSENSITIVE_ORDER));
+
+        List<FacetasTienda.RangoPrecio> rangos = new ArrayList<>(histograma.size());
+        histograma.forEach((rango, conteo) -> {
+            BigDecimal desde = anchoRango.multiply(BigDecimal.valueOf(rango));
+            rangos.add(new FacetasTienda.RangoPrecio(desde, desde.add(anchoRango), conteo[0]));
+        });
+
+        return new FacetasTienda(categorias, rangos, totalCategorias, total);
+    }
+
+    @Override
+    public void programarReconstruccion() {
+        Transacciones.trasConfirmar(this::encolarReconstruccion);
+    }
+
+    @Override
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        List<ProductoResumenDTO> productos = productoRepository.findResumenesActivos();
+        actual.set(new Snapshot(productos));
+        log.info("Snapshot del catálogo reconstruido: {} productos en {} ms",
+                productos.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void encolarReconstruccion() {
+        // Varias escrituras seguidas se resuelven con una sola reconstrucción pendiente
+        if (reconstruccionPendiente.compareAndSet(false, true)) {
+            ejecutor.execute(() -> {
+                reconstruccionPendiente.set(false);
+                try {
+                    reconstruir();
+                } catch (Exception e) {
+                    log.error("Error al reconstruir snapshot del catálogo: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    private static boolean coincide(Snapshot snapshot, int pos, FiltroTienda filtro) {
+        return (filtro.getCategoriaId() == null || snapshot.categorias[pos] == filtro.getCategoriaId())
+                && (!filtro.isEnStock() || snapshot.stock[pos] > 0);
+    }
+
+    private static long aCentavos(BigDecimal precio, RoundingMode redondeo) {
+        return precio.movePointRight(2).setScale(0, redondeo).longValueExact();
+    }
+
+    private static final class Snapshot {
+        private final long[] ids;
+        private final long[] preciosCentavos;
+        private final long[] categorias;
+        private final int[] stock;
+        private final BigDecimal[] precios;
+        private final String[] nombres;
+        private final String[] descripciones;
+        private final String[] imagenes;
+        private final int[] porPrecio;
+        private final long[] preciosOrdenados;
+        private final Map<Long, String> nombresCategoria = new HashMap<>();
+
+        Snapshot(List<ProductoResumenDTO> origen) {
+            List<ProductoResumenDTO> ordenados = new ArrayList<>(origen);
+            ordenados.sort(Comparator.comparing(ProductoResumenDTO::getId));
+            int n = ordenados.size();
+            ids = new long[n];
+            preciosCentavos = new long[n];
+            categorias = new long[n];
+            stock = new int[n];
+            precios = new BigDecimal[n];
+            nombres = new String[n];
+            descripciones = new String[n];
+            imagenes = new String[n];
+
+            for (int i = 0; i < n; i++) {
+                ProductoResumenDTO producto = ordenados.get(i);
+                ids[i] = producto.getId();
+                precios[i] = producto.getPrecio();
+                preciosCentavos[i] = aCentavos(producto.getPrecio(), RoundingMode.HALF_UP);
+                categorias[i] = producto.getCategoriaId();
+                stock[i] = producto.getStock() != null ? producto.getStock() : 0;
+                nombres[i] = producto.getNombre();
+                descripciones[i] = producto.getDescripcion();
+                imagenes[i] = producto.getImagenUrl();
+                nombresCategoria.putIfAbsent(categorias[i], producto.getCategoriaNombre());
+            }
+
+            // Como los ids ya están ordenados, el orden estable por precio desempata por id
+            porPrecio = IntStream.range(0, n).boxed()
+                    .sorted(Comparator.comparingLong(i -> preciosCentavos[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            preciosOrdenados = new long[n];
+            for (int i = 0; i < n; i++) {
+                preciosOrdenados[i] = preciosCentavos[porPrecio[i]];
+            }
+        }
+
+        // Resumen nuevo en cada llamada: el controlador de la tienda reescribe la imagen
+        ProductoResumenDTO resumen(int pos) {
+            return new ProductoResumenDTO(ids[pos], nombres[pos], descripciones[pos], precios[pos], stock[pos],
+                    imagenes[pos], categorias[pos], nombresCategoria.get(categorias[pos]), true);
+        }
+
+        int primeroDesde(long precio) {
+            int bajo = 0;
+            int alto = preciosOrdenados.length;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (preciosOrdenados[medio] < precio) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        int primeroDespuesDe(long precio) {
+            return precio == Long.MAX_VALUE ? preciosOrdenados.length : primeroDesde(precio + 1);
+        }
+
+        /**
+         * Cantidad de entradas del índice por precio anteriores a (precio, id), incluyendo
+         * la propia entrada si {@code incluirIgual}.
+         */
+        int contarAntesDe(long precio, long id, boolean incluirIgual) {
+            int bajo = 0;
+            int alto = porPrecio.length;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                long precioMedio = preciosOrdenados[medio];
+                long idMedio = ids[porPrecio[medio]];
+                if (precioMedio < precio || (precioMedio == precio && (idMedio < id || (incluirIgual && idMedio == id)))) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        int primeroConIdMayor(long id) {
+            int pos = Arrays.binarySearch(ids, id);
+            return pos >= 0 ? pos + 1 : -pos - 1;
+        }
+    }
+}
@@ -2,9 +2,18 @@ package com.example.tiendaperfericos.services.implement;
 
 
 import com.example.tiendaperfericos.Repostory.CategoriaRepository;
+import com.example.tiendaperfericos.config.CacheConfig;
+import com.example.tiendaperfericos.dto.CambioCatalogo;
 import com.example.tiendaperfericos.entity.Categoria;
+import com.example.tiendaperfericos.services.CatalogoSnapshotService;
+import com.example.tiendaperfericos.services.DestacadosService;
+import com.example.tiendaperfericos.services.VersionCatalogoService;
 import com.example.tiendaperfericos.services.CategoriaService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,8 +25,13 @@ import java.util.Optional;
 public class CategoriaServiceImpl implements CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
+    private final CatalogoSnapshotService catalogoSnapshotService;
+    private final DestacadosService destacadosService;
+    private final VersionCatalogoService versionCatalogoService;
+    private final ApplicationEventPublisher publicador;
 
     @Override
+    @Cacheable(CacheConfig.CATEGORIAS)
     @Transactional(readOnly = true)
     public List<Categoria> findAll() {
         return categoriaRepository.findByActivaTrue();
@@ -42,17 +56,30 @@ public class CategoriaServiceImpl implements CategoriaService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = {CacheConfig.PRODUCTO, CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA},
+                    allEntries = true)
+    })
     @Transactional
     public Categoria save(Categoria categoria) {
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        catalogoCambiado(guardada.getId());
+        return guardada;
     }
 
-    @Transactional
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = {CacheConfig.PRODUCTO, CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA},
+                    allEntries = true)
+    })
+    @Transactional
     public void deleteById(Long id) {
         categoriaRepository.findById(id).ifPresent(categoria -> {
             categoria.setActiva(false);
             categoriaRepository.save(categoria);
+            catalogoCambiado(categoria.getId());
         });
     }
 
@@ -75,11 +102,25 @@ public class CategoriaServiceImpl implements CategoriaService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = {CacheConfig.PRODUCTO, CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA},
+                    allEntries = true)
+    })
     @Transactional
     public void cambiarEstadoCategoria(Long id, boolean activa) {
         categoriaRepository.findById(id).ifPresent(categoria -> {
             categoria.setActiva(activa);
             categoriaRepository.save(categoria);
+            catalogoCambiado(categoria.getId());
         });
     }
-}
\ No newline at end of file
+
+    // Un cambio de categoría afecta a todos sus productos: índices, snapshot y destacados completos
+    private void catalogoCambiado(Long categoriaId) {
+        publicador.publishEvent(CambioCatalogo.completo());
+        catalogoSnapshotService.programarReconstruccion();
+        destacadosService.programarRecalculo();
+        versionCatalogoService.registrarCambio(categoriaId, null);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoDestacadoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.entity.ProductoDestacado;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import com.example.tiendaperfericos.services.DestacadosService;
+import com.example.tiendaperfericos.services.VersionCatalogoService;
+import com.example.tiendaperfericos.util.Transacciones;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lista de destacados del inicio calculada de antemano: primero los productos fijados por el
+ * administrador, luego los más vendidos en los últimos días y por último las novedades,
+ * siempre con stock disponible. El inicio solo lee la lista ya calculada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DestacadosServiceImpl implements DestacadosService {
+
+    private final ProductoRepository productoRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final ProductoDestacadoRepository productoDestacadoRepository;
+    private final VersionCatalogoService versionCatalogoService;
+
+    @Value("${tienda.destacados.cantidad:8}")
+    private int cantidad;
+
+    @Value("${tienda.destacados.dias-ventas:30}")
+    private int diasVentas;
+
+    private final AtomicReference<List<Producto>> destacados = new AtomicReference<>(List.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        recalcular();
+    }
+
+    @Scheduled(fixedDelayString = "${tienda.destacados.refresco-ms:300000}",
+            initialDelayString = "${tienda.destacados.refresco-ms:300000}")
+    public void recalcularProgramado() {
+        recalcular();
+    }
+
+    @Override
+    public List<Producto> obtenerDestacados() {
+        return destacados.get();
+    }
+
+    @Override
+    public void recalcular() {
+        Map<Long, Producto> disponibles = new LinkedHashMap<>();
+        productoRepository.findProductosActivos().stream()
+                .filter(p -> p.getStock() != null && p.getStock() > 0)
+                .sorted(Comparator.comparing(Producto::getFechaCreacion,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .forEach(p -> disponibles.put(p.getId(), p));
+
+        Map<Long, Producto> seleccion = new LinkedHashMap<>();
+        for (ProductoDestacado fijado : productoDestacadoRepository.findAllByOrderByPosicionAsc()) {
+            agregarSiDisponible(seleccion, disponibles, fijado.getProducto().getId());
+        }
+
+        LocalDateTime desde = LocalDateTime.now().minusDays(diasVentas);
+        for (Object[] fila : detallePedidoRepository.findVentasPorProductoDesde(desde, EstadoPedido.CANCELADO)) {
+            agregarSiDisponible(seleccion, disponibles, (Long) fila[0]);
+        }
+
+        for (Long id : disponibles.keySet()) {
+            agregarSiDisponible(seleccion, disponibles, id);
+        }
+
+        List<Producto> anteriores = destacados.getAndSet(List.copyOf(seleccion.values()));
+        if (!anteriores.isEmpty() && !anteriores.stream().map(Producto::getId).toList().equals(List.copyOf(seleccion.keySet()))) {
+            // El inicio cambia aunque no haya habido escrituras en el catálogo
+            versionCatalogoService.registrarCambio(null, null);
+        }
+        log.info("Productos destacados recalculados: {}", seleccion.size());
+    }
+
+    @Override
+    public void notificarAgotado(Long productoId) {
+        if (destacados.get().stream().anyMatch(p -> p.getId().equals(productoId))) {
+            programarRecalculo();
+        }
+    }
+
+    @Override
+    public void programarRecalculo() {
+        Transacciones.trasConfirmar(this::recalcular);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoDestacado> findFijados() {
+        return productoDestacadoRepository.findAllByOrderByPosicionAsc();
+    }
+
+    @Override
+    @Transactional
+    public void fijar(Long productoId) {
+        if (productoDestacadoRepository.existsByProductoId(productoId)) {
+            return;
+        }
+        Producto producto = productoRepository.findByIdAndActivoTrue(productoId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        productoDestacadoRepository.save(ProductoDestacado.builder()
+                .producto(producto)
+                .posicion(productoDestacadoRepository.findMaxPosicion() + 1)
+                .build());
+        programarRecalculo();
+    }
+
+    @Override
+    @Transactional
+    public void quitar(Long productoId) {
+        productoDestacadoRepository.deleteByProductoId(productoId);
+        programarRecalculo();
+    }
+
+    private void agregarSiDisponible(Map<Long, Producto> seleccion, Map<Long, Producto> disponibles, Long id) {
+        if (seleccion.size() < cantidad && disponibles.containsKey(id)) {
+            seleccion.putIfAbsent(id, disponibles.get(id));
+        }
+    }
+}
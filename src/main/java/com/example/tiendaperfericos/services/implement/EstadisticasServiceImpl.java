@@ -4,14 +4,20 @@ import com.example.tiendaperfericos.Repostory.*;
 import com.example.tiendaperfericos.entity.Pedido;
 import com.example.tiendaperfericos.entity.emun.EstadoPedido;
 import com.example.tiendaperfericos.services.EstadisticasService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +32,7 @@ public class EstadisticasServiceImpl implements EstadisticasService {
     private final CategoriaRepository categoriaRepository;
     private final DetallePedidoRepository detallePedidoRepository;
     private final EstadisticasRepository estadisticasRepository;
+    private final CacheManager cacheManager;
 
     @Override
     @Transactional(readOnly = true)
@@ -326,4 +333,26 @@ public class EstadisticasServiceImpl implements EstadisticasService {
 
         return metricas;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<String, Object> obtenerEstadisticasCache() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        for (String nombre : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache instanceof TransactionAwareCacheDecorator decorador) {
+                cache = decorador.getTargetCache();
+            }
+            if (cache instanceof CaffeineCache caffeineCache) {
+                CacheStats stats = caffeineCache.getNativeCache().stats();
+                Map<String, Object> detalle = new LinkedHashMap<>();
+                detalle.put("aciertos", stats.hitCount());
+                detalle.put("fallos", stats.missCount());
+                detalle.put("tasaAciertos", Math.round(stats.hitRate() * 10000.0) / 100.0);
+                detalle.put("desalojos", stats.evictionCount());
+                detalle.put("entradas", caffeineCache.getNativeCache().estimatedSize());
+                estadisticas.put(nombre, detalle);
+            }
+        }
+        return estadisticas;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.services.EventosService;
+import com.example.tiendaperfericos.util.Transacciones;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Canal de eventos del servidor (SSE) para el contador del carrito y el stock de la ficha de
+ * producto. Una conexión abierta es una petición asíncrona del contenedor sin hilo asignado;
+ * los envíos se hacen en hilos virtuales, uno por conexión con eventos en cola, así que un
+ * cliente lento no frena a quien publica ni a los demás.
+ */
+@Service
+public class EventosServiceImpl implements EventosService {
+
+    private final long timeoutMs;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Suscripcion>> porUsuario = new ConcurrentHashMap<>();
+    // Invitados: el carrito vive en la sesión HTTP, así que se les localiza por su id
+    private final Map<String, Set<Suscripcion>> porSesion = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Suscripcion>> porProducto = new ConcurrentHashMap<>();
+
+    private volatile boolean cerrado;
+
+    public EventosServiceImpl(@Value("${tienda.eventos.timeout-ms:1800000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Conexión de una página. Los eventos de cada conexión salen en orden: se encolan y un
+     * único hilo virtual a la vez los escribe.
+     */
+    private class Suscripcion {
+        final SseEmitter emitter = new SseEmitter(timeoutMs);
+        final Long usuarioId;
+        final String sesionInvitado;
+        final Long productoId;
+        final Queue<SseEmitter.SseEventBuilder> cola = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean enviando = new AtomicBoolean();
+
+        Suscripcion(Long usuarioId, String sesionInvitado, Long productoId) {
+            this.usuarioId = usuarioId;
+            this.sesionInvitado = sesionInvitado;
+            this.productoId = productoId;
+        }
+
+        void encolar(SseEmitter.SseEventBuilder evento) {
+            cola.add(evento);
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::vaciar);
+                } catch (RejectedExecutionException e) {
+                    // Apagando: la conexión se cierra en alCerrarContexto
+                }
+            }
+        }
+
+        private void vaciar() {
+            do {
+                SseEmitter.SseEventBuilder evento;
+                while ((evento = cola.poll()) != null) {
+                    try {
+                        emitter.send(evento);
+                    } catch (Exception e) {
+                        // Cliente desconectado: el contenedor cierra la petición; aquí solo se suelta
+                        cola.clear();
+                        quitar(this);
+                        return;
+                    }
+                }
+                enviando.set(false);
+            } while (!cola.isEmpty() && enviando.compareAndSet(false, true));
+        }
+    }
+
+    @Override
+    public SseEmitter suscribir(Long usuarioId, String sesionInvitado, Long productoId, Integer itemsCarrito) {
+        Suscripcion suscripcion = new Suscripcion(usuarioId, sesionInvitado, productoId);
+        suscripcion.emitter.onCompletion(() -> quitar(suscripcion));
+        suscripcion.emitter.onTimeout(() -> quitar(suscripcion));
+        suscripcion.emitter.onError(e -> quitar(suscripcion));
+
+        suscripciones.add(suscripcion);
+        if (usuarioId != null) {
+            registrar(porUsuario, usuarioId, suscripcion);
+        } else if (sesionInvitado != null) {
+            registrar(porSesion, sesionInvitado, suscripcion);
+        }
+        if (productoId != null) {
+            registrar(porProducto, productoId, suscripcion);
+        }
+        // Alta durante el apagado: se comprueba después de registrarla para que no quede abierta
+        if (cerrado) {
+            suscripcion.emitter.complete();
+            return suscripcion.emitter;
+        }
+        // El valor actual va en el primer evento, así la página no necesita pedirlo aparte
+        if (itemsCarrito != null) {
+            suscripcion.encolar(eventoCarrito(itemsCarrito));
+        }
+        return suscripcion.emitter;
+    }
+
+    @Override
+    public void publicarCarrito(Long usuarioId, int totalItems) {
+        Transacciones.trasConfirmar(() -> {
+            Set<Suscripcion> destino = porUsuario.get(usuarioId);
+            if (destino != null) {
+                destino.forEach(suscripcion -> suscripcion.encolar(eventoCarrito(totalItems)));
+            }
+        });
+    }
+
+    @Override
+    public void publicarCarritoInvitado(String sesionId, int totalItems) {
+        Set<Suscripcion> destino = porSesion.get(sesionId);
+        if (destino != null) {
+            destino.forEach(suscripcion -> suscripcion.encolar(eventoCarrito(totalItems)));
+        }
+    }
+
+    @Override
+    public void publicarStock(Long productoId, int stock) {
+        Transacciones.trasConfirmar(() -> {
+            Set<Suscripcion> destino = porProducto.get(productoId);
+            if (destino != null) {
+                destino.forEach(suscripcion -> suscripcion.encolar(SseEmitter.event()
+                        .name("stock")
+                        .data("{\"productoId\":" + productoId + ",\"stock\":" + stock + "}")));
+            }
+        });
+    }
+
+    /**
+     * Comentario SSE periódico: mantiene abiertas las conexiones a través de proxies y
+     * detecta los clientes que se fueron sin cerrar.
+     */
+    @Scheduled(fixedDelayString = "${tienda.eventos.latido-ms:25000}",
+            initialDelayString = "${tienda.eventos.latido-ms:25000}")
+    public void latido() {
+        suscripciones.forEach(suscripcion -> suscripcion.encolar(SseEmitter.event().comment("")));
+    }
+
+    /**
+     * Cierra las conexiones en cuanto empieza el apagado. Tiene que ser antes del apagado ordenado
+     * del servidor web, que espera a las peticiones asíncronas en curso: con los canales abiertos
+     * agotaría siempre el plazo de gracia. Por eso no basta con {@code @PreDestroy}, que llega después.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void alCerrarContexto() {
+        cerrado = true;
+        suscripciones.forEach(suscripcion -> suscripcion.emitter.complete());
+        suscripciones.clear();
+        porUsuario.clear();
+        porSesion.clear();
+        porProducto.clear();
+        executor.shutdownNow();
+    }
+
+    private static SseEmitter.SseEventBuilder eventoCarrito(int totalItems) {
+        return SseEmitter.event().name("carrito").data(String.valueOf(totalItems));
+    }
+
+    private void quitar(Suscripcion suscripcion) {
+        if (!suscripciones.remove(suscripcion)) {
+            return;
+        }
+        if (suscripcion.usuarioId != null) {
+            desregistrar(porUsuario, suscripcion.usuarioId, suscripcion);
+        } else if (suscripcion.sesionInvitado != null) {
+            desregistrar(porSesion, suscripcion.sesionInvitado, suscripcion);
+        }
+        if (suscripcion.productoId != null) {
+            desregistrar(porProducto, suscripcion.productoId, suscripcion);
+        }
+    }
+
+    // Altas y bajas dentro de compute para no añadir a un conjunto que otra baja acaba de soltar
+    private static <K> void registrar(Map<K, Set<Suscripcion>> indice, K clave, Suscripcion suscripcion) {
+        indice.compute(clave, (id, conjunto) -> {
+            Set<Suscripcion> resultado = conjunto != null ? conjunto : ConcurrentHashMap.newKeySet();
+            resultado.add(suscripcion);
+            return resultado;
+        });
+    }
+
+    private static <K> void desregistrar(Map<K, Set<Suscripcion>> indice, K clave, Suscripcion suscripcion) {
+        indice.computeIfPresent(clave, (id, conjunto) -> {
+            conjunto.remove(suscripcion);
+            return conjunto.isEmpty() ? null : conjunto;
+        });
+    }
+}
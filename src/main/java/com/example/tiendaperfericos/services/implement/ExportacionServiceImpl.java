@@ -0,0 +1,175 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
+import com.example.tiendaperfericos.Repostory.PedidoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import com.example.tiendaperfericos.services.ExportacionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de productos, pedidos y líneas de pedido en CSV o JSON Lines. Las filas se leen
+ * con un cursor de solo avance y se escriben directamente en la salida según llegan, así que
+ * la memoria no crece con el historial.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportacionServiceImpl implements ExportacionService {
+
+    private static final List<String> COLUMNAS_PRODUCTOS = List.of("id", "nombre", "descripcion", "precio", "stock",
+            "categoria_id", "categoria", "imagen_url", "activo", "fecha_creacion", "fecha_actualizacion");
+    private static final List<String> COLUMNAS_PEDIDOS = List.of("id", "fecha_pedido", "estado", "total",
+            "usuario_id", "usuario_email", "direccion_entrega", "telefono_contacto");
+    private static final List<String> COLUMNAS_DETALLES = List.of("id", "pedido_id", "fecha_pedido", "estado",
+            "producto_id", "producto", "cantidad", "precio_unitario");
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final ProductoRepository productoRepository;
+    private final PedidoRepository pedidoRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public long exportarProductos(OutputStream salida, boolean jsonLines) throws IOException {
+        return exportar(salida, jsonLines, COLUMNAS_PRODUCTOS, productoRepository::streamExportacion);
+    }
+
+    @Override
+    public long exportarPedidos(OutputStream salida, boolean jsonLines, LocalDate desde, LocalDate hasta,
+                                EstadoPedido estado) throws IOException {
+        return exportar(salida, jsonLines, COLUMNAS_PEDIDOS,
+                () -> pedidoRepository.streamExportacion(inicio(desde), fin(hasta), estado));
+    }
+
+    @Override
+    public long exportarDetalles(OutputStream salida, boolean jsonLines, LocalDate desde, LocalDate hasta,
+                                 EstadoPedido estado) throws IOException {
+        return exportar(salida, jsonLines, COLUMNAS_DETALLES,
+                () -> detallePedidoRepository.streamExportacion(inicio(desde), fin(hasta), estado));
+    }
+
+    private long exportar(OutputStream salida, boolean jsonLines, List<String> columnas,
+                          Supplier<Stream<Object[]>> consulta) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        try {
+            Long total = transactionTemplate.execute(tx -> {
+                try (Stream<Object[]> filas = consulta.get()) {
+                    return jsonLines ? escribirJsonLines(escritor, columnas, filas.iterator())
+                            : escribirCsv(escritor, columnas, filas.iterator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            escritor.flush();
+            return total != null ? total : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long escribirCsv(Writer escritor, List<String> columnas, Iterator<Object[]> filas)
+            throws IOException {
+        // BOM para que Excel reconozca el UTF-8 al abrir el archivo
+        escritor.write('\uFEFF');
+        escritor.write(String.join(",", columnas));
+        escritor.write("\r\n");
+        long total = 0;
+        while (filas.hasNext()) {
+            Object[] fila = filas.next();
+            for (int i = 0; i < fila.length; i++) {
+                if (i > 0) {
+                    escritor.write(',');
+                }
+                escritor.write(campoCsv(fila[i]));
+            }
+            escritor.write("\r\n");
+            total++;
+        }
+        return total;
+    }
+
+    private long escribirJsonLines(Writer escritor, List<String> columnas, Iterator<Object[]> filas)
+            throws IOException {
+        long total = 0;
+        // El generador no cierra el escritor: lo cierra el contenedor al terminar la respuesta
+        JsonGenerator json = objectMapper.getFactory().createGenerator(escritor)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        while (filas.hasNext()) {
+            Object[] fila = filas.next();
+            json.writeStartObject();
+            for (int i = 0; i < fila.length; i++) {
+                json.writeFieldName(columnas.get(i));
+                Object valor = fila[i];
+                if (valor instanceof BigDecimal numero) {
+                    json.writeNumber(numero);
+                } else if (valor instanceof Number numero) {
+                    json.writeNumber(numero.longValue());
+                } else if (valor instanceof Boolean logico) {
+                    json.writeBoolean(logico);
+                } else if (valor == null) {
+                    json.writeNull();
+                } else {
+                    json.writeString(texto(valor));
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            total++;
+        }
+        json.flush();
+        return total;
+    }
+
+    private static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = texto(valor);
+        if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0
+                || texto.indexOf('\r') >= 0) {
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+        return texto;
+    }
+
+    private static String texto(Object valor) {
+        if (valor instanceof BigDecimal numero) {
+            return numero.toPlainString();
+        }
+        if (valor instanceof Enum<?> enumerado) {
+            return enumerado.name();
+        }
+        return valor.toString();
+    }
+
+    private static LocalDateTime inicio(LocalDate desde) {
+        return desde != null ? desde.atStartOfDay() : null;
+    }
+
+    // El día "hasta" se incluye completo
+    private static LocalDateTime fin(LocalDate hasta) {
+        return hasta != null ? hasta.plusDays(1).atStartOfDay() : null;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.services.ImagenService;
+import com.example.tiendaperfericos.services.VersionCatalogoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Variantes redimensionadas de las imágenes de producto (miniatura, tarjeta y detalle).
+ * Se generan al arrancar para las imágenes empaquetadas y, para el resto, la primera vez que
+ * se piden; se guardan en disco con el hash del contenido en el nombre, así que pueden
+ * servirse con caché de un año sin riesgo de quedar obsoletas. Mientras una imagen no tiene
+ * variantes las páginas enlazan el original; al publicarlas se avanza la versión del catálogo
+ * para que esas páginas no sigan en caché ni respondan 304.
+ */
+@Service
+@Slf4j
+public class ImagenServiceImpl implements ImagenService {
+
+    public static final String RUTA_VARIANTES = "/imagenes/v/";
+    public static final String PLACEHOLDER = "/images/placeholder-product.jpg";
+
+    private static final String PREFIJO_LOCAL = "/images/";
+    private static final float CALIDAD_JPEG = 0.82f;
+
+    private enum Variante {
+        MINIATURA(160), TARJETA(480), DETALLE(960);
+
+        private final int ancho;
+
+        Variante(int ancho) {
+            this.ancho = ancho;
+        }
+    }
+
+    private final Path directorio;
+    private final VersionCatalogoService versionCatalogoService;
+    private final Map<String, String> urls = new ConcurrentHashMap<>();
+    private final Set<String> enProceso = ConcurrentHashMap.newKeySet();
+    private final Set<String> sinVariantes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "imagenes-variantes");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public ImagenServiceImpl(@Value("${tienda.imagenes.directorio-variantes:${java.io.tmpdir}/tienda-imagenes}") String directorio,
+                             VersionCatalogoService versionCatalogoService) {
+        this.directorio = Path.of(directorio);
+        this.versionCatalogoService = versionCatalogoService;
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        executor.execute(this::generarVariantes);
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String variante(String imagenUrl, String tamano) {
+        if (imagenUrl == null || imagenUrl.isBlank()) {
+            return PLACEHOLDER;
+        }
+        if (!imagenUrl.startsWith(PREFIJO_LOCAL)) {
+            // Imágenes externas: no se pueden procesar aquí
+            return imagenUrl;
+        }
+        Variante variante = Variante.valueOf(tamano.toUpperCase(Locale.ROOT));
+        String url = urls.get(clave(imagenUrl, variante));
+        if (url != null || sinVariantes.contains(imagenUrl)) {
+            return url != null ? url : imagenUrl;
+        }
+        // Mientras se genera se sirve el original
+        if (enProceso.add(imagenUrl)) {
+            executor.execute(() -> {
+                try {
+                    if (generar(imagenUrl)) {
+                        versionCatalogoService.registrarCambioGeneral();
+                    }
+                } finally {
+                    enProceso.remove(imagenUrl);
+                }
+            });
+        }
+        return imagenUrl;
+    }
+
+    @Override
+    public void generarVariantes() {
+        try {
+            Files.createDirectories(directorio);
+            Resource[] recursos = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath:/static" + PREFIJO_LOCAL + "productos/**/*.*");
+            boolean nuevas = false;
+            for (Resource recurso : recursos) {
+                String uri = recurso.getURI().toString();
+                int inicio = uri.indexOf("/static/");
+                if (inicio >= 0) {
+                    nuevas |= generar(uri.substring(inicio + "/static".length()));
+                }
+            }
+            // Una sola vez al final: las páginas servidas entretanto enlazan los originales
+            if (nuevas) {
+                versionCatalogoService.registrarCambioGeneral();
+            }
+            log.info("Variantes de imágenes listas: {} imágenes", urls.size() / Variante.values().length);
+        } catch (IOException e) {
+            log.error("Error al generar variantes de imágenes: {}", e.getMessage());
+        }
+    }
+
+    // Devuelve si publicó alguna URL de variante que no estuviera ya
+    private boolean generar(String imagenUrl) {
+        Resource recurso = new PathMatchingResourcePatternResolver().getResource("classpath:/static" + imagenUrl);
+        if (!recurso.exists()) {
+            sinVariantes.add(imagenUrl);
+            return false;
+        }
+        boolean nuevas = false;
+        try (InputStream entrada = recurso.getInputStream()) {
+            byte[] original = entrada.readAllBytes();
+            String hash = hash(original);
+            String base = nombreBase(imagenUrl);
+
+            BufferedImage imagen = null;
+            for (Variante variante : Variante.values()) {
+                boolean conAlfa = imagenUrl.toLowerCase(Locale.ROOT).endsWith(".png");
+                String nombre = base + "-" + variante.name().toLowerCase(Locale.ROOT) + "-" + hash
+                        + (conAlfa ? ".png" : ".jpg");
+                Path destino = directorio.resolve(nombre);
+                if (!Files.exists(destino)) {
+                    if (imagen == null) {
+                        imagen = ImageIO.read(new ByteArrayInputStream(original));
+                        if (imagen == null) {
+                            log.warn("Formato de imagen no soportado: {}", imagenUrl);
+                            sinVariantes.add(imagenUrl);
+                            return nuevas;
+                        }
+                    }
+                    escribir(redimensionar(imagen, variante.ancho, conAlfa), destino, conAlfa);
+                }
+                String url = RUTA_VARIANTES + nombre;
+                nuevas |= !url.equals(urls.put(clave(imagenUrl, variante), url));
+            }
+        } catch (IOException e) {
+            log.error("Error al generar variantes de {}: {}", imagenUrl, e.getMessage());
+        }
+        return nuevas;
+    }
+
+    private static BufferedImage redimensionar(BufferedImage imagen, int anchoMaximo, boolean conAlfa) {
+        int ancho = Math.min(anchoMaximo, imagen.getWidth());
+        int alto = Math.max(1, Math.round(imagen.getHeight() * (ancho / (float) imagen.getWidth())));
+        BufferedImage resultado = new BufferedImage(ancho, alto,
+                conAlfa ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resultado.createGraphics();
+        try {
+            if (!conAlfa) {
+                // JPEG no tiene transparencia: se aplana sobre blanco
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, ancho, alto);
+            }
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.drawImage(imagen, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return resultado;
+    }
+
+    private static void escribir(BufferedImage imagen, Path destino, boolean conAlfa) throws IOException {
+        // Se escribe a un temporal y se mueve, para no servir nunca un archivo a medias
+        Path temporal = Files.createTempFile(destino.getParent(), "variante", ".tmp");
+        try {
+            if (conAlfa) {
+                ImageIO.write(imagen, "png", temporal.toFile());
+            } else {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+                try (ImageOutputStream salida = ImageIO.createImageOutputStream(temporal.toFile())) {
+                    ImageWriteParam parametros = writer.getDefaultWriteParam();
+                    parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    parametros.setCompressionQuality(CALIDAD_JPEG);
+                    parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                    writer.setOutput(salida);
+                    writer.write(null, new IIOImage(imagen, null, null), parametros);
+                } finally {
+                    writer.dispose();
+                }
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static String nombreBase(String imagenUrl) {
+        String nombre = imagenUrl.substring(imagenUrl.lastIndexOf('/') + 1);
+        int punto = nombre.lastIndexOf('.');
+        return (punto > 0 ? nombre.substring(0, punto) : nombre).replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private static String hash(byte[] contenido) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(contenido);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String clave(String imagenUrl, Variante variante) {
+        return imagenUrl + "|" + variante;
+    }
+}
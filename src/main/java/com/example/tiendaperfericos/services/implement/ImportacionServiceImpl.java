@@ -0,0 +1,439 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.config.CacheConfig;
+import com.example.tiendaperfericos.dto.CambioCatalogo;
+import com.example.tiendaperfericos.dto.ImportacionEstado;
+import com.example.tiendaperfericos.entity.Categoria;
+import com.example.tiendaperfericos.services.CatalogoSnapshotService;
+import com.example.tiendaperfericos.services.CategoriaService;
+import com.example.tiendaperfericos.services.DestacadosService;
+import com.example.tiendaperfericos.services.ImportacionService;
+import com.example.tiendaperfericos.services.VersionCatalogoService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Importación masiva del catálogo desde CSV o JSON. El archivo se lee fila a fila y se escribe
+ * en lotes con un único INSERT ... ON DUPLICATE KEY UPDATE por lote, así que la memoria usada
+ * no depende del tamaño del archivo. Las filas con {@code id} actualizan ese producto; las que
+ * no lo traen se insertan con el autoincremento de la tabla.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacionServiceImpl implements ImportacionService {
+
+    private static final String SQL_UPSERT = """
+            INSERT INTO productos (id, nombre, descripcion, precio, stock, categoria_id, imagen_url, activo,
+                                   fecha_creacion, fecha_actualizacion)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) AS nuevo
+            ON DUPLICATE KEY UPDATE nombre = nuevo.nombre, descripcion = nuevo.descripcion,
+                                    precio = nuevo.precio, stock = nuevo.stock,
+                                    categoria_id = nuevo.categoria_id, imagen_url = nuevo.imagen_url,
+                                    activo = nuevo.activo, fecha_actualizacion = nuevo.fecha_actualizacion
+            """;
+
+    private static final int MAX_RECIENTES = 20;
+    private static final int LONGITUD_NOMBRE = 255;
+    private static final int LONGITUD_DESCRIPCION = 2000;
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final CategoriaService categoriaService;
+    private final CatalogoSnapshotService catalogoSnapshotService;
+    private final DestacadosService destacadosService;
+    private final VersionCatalogoService versionCatalogoService;
+    private final ApplicationEventPublisher publicador;
+
+    @Value("${tienda.importacion.lote:500}")
+    private int tamanoLote;
+
+    private final Map<String, ImportacionEstado> recientes = new LinkedHashMap<>();
+    // Un solo hilo: dos importaciones a la vez competirían por las mismas filas
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "importacion-catalogo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ImportacionEstado iniciar(MultipartFile archivo) {
+        String nombre = archivo.getOriginalFilename() != null ? archivo.getOriginalFilename() : "catalogo";
+        boolean json = nombre.toLowerCase(Locale.ROOT).matches(".*\\.(json|jsonl|ndjson)$")
+                || (archivo.getContentType() != null && archivo.getContentType().contains("json"));
+        Path temporal;
+        try {
+            // El archivo subido se borra al acabar la petición; se copia para procesarlo después
+            temporal = Files.createTempFile("importacion", json ? ".json" : ".csv");
+            archivo.transferTo(temporal);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo recibir el archivo: " + e.getMessage());
+        }
+
+        ImportacionEstado estado = new ImportacionEstado(UUID.randomUUID().toString(), nombre);
+        synchronized (recientes) {
+            recientes.put(estado.getId(), estado);
+            if (recientes.size() > MAX_RECIENTES) {
+                recientes.remove(recientes.keySet().iterator().next());
+            }
+        }
+        executor.execute(() -> procesar(temporal, json, estado));
+        return estado;
+    }
+
+    @Override
+    public Optional<ImportacionEstado> findById(String id) {
+        synchronized (recientes) {
+            return Optional.ofNullable(recientes.get(id));
+        }
+    }
+
+    @Override
+    public List<ImportacionEstado> findRecientes() {
+        synchronized (recientes) {
+            List<ImportacionEstado> lista = new ArrayList<>(recientes.values());
+            Collections.reverse(lista);
+            return lista;
+        }
+    }
+
+    private void procesar(Path archivo, boolean json, ImportacionEstado estado) {
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            Lote lote = new Lote(categoriasPorClave(), estado);
+            if (json) {
+                leerJson(lector, lote);
+            } else {
+                leerCsv(lector, lote);
+            }
+            lote.escribir();
+            estado.terminar(ImportacionEstado.COMPLETADA);
+            log.info("Importación {} completada: {} filas guardadas, {} rechazadas",
+                    estado.getArchivo(), estado.getGuardadas().get(), estado.getRechazadas().get());
+        } catch (Exception e) {
+            log.error("Importación {} interrumpida: {}", estado.getArchivo(), e.getMessage());
+            estado.rechazar(0, "Importación interrumpida en la fila " + estado.getLeidas().get() + ": " + e.getMessage());
+            estado.terminar(ImportacionEstado.FALLIDA);
+        } finally {
+            try {
+                Files.deleteIfExists(archivo);
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el temporal {}: {}", archivo, e.getMessage());
+            }
+            if (estado.getGuardadas().get() > 0) {
+                refrescarCatalogo();
+            }
+        }
+    }
+
+    /**
+     * Ids de las categorías activas, por id y por nombre, a partir de la caché de categorías.
+     */
+    private Map<String, Long> categoriasPorClave() {
+        Map<String, Long> claves = new HashMap<>();
+        for (Categoria categoria : categoriaService.findAll()) {
+            claves.put(categoria.getId().toString(), categoria.getId());
+            claves.put(categoria.getNombre().trim().toLowerCase(Locale.ROOT), categoria.getId());
+        }
+        return claves;
+    }
+
+    private void leerCsv(BufferedReader lector, Lote lote) throws IOException {
+        LectorCsv csv = new LectorCsv(lector, detectarSeparador(lector));
+        List<String> cabecera = csv.siguiente();
+        if (cabecera == null) {
+            return;
+        }
+        List<String> columnas = cabecera.stream().map(ImportacionServiceImpl::normalizarColumna).toList();
+        List<String> valores;
+        while ((valores = csv.siguiente()) != null) {
+            if (valores.size() == 1 && valores.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, String> fila = new HashMap<>();
+            for (int i = 0; i < columnas.size() && i < valores.size(); i++) {
+                fila.put(columnas.get(i), valores.get(i));
+            }
+            lote.agregar(fila);
+        }
+    }
+
+    /**
+     * Acepta un array de objetos o un objeto por línea (JSON Lines).
+     */
+    private void leerJson(Reader lector, Lote lote) throws IOException {
+        try (MappingIterator<Map<String, Object>> objetos = objectMapper.readerForMapOf(Object.class).readValues(lector)) {
+            while (objetos.hasNextValue()) {
+                Map<String, String> fila = new HashMap<>();
+                objetos.nextValue().forEach((clave, valor) ->
+                        fila.put(normalizarColumna(clave), valor != null ? valor.toString() : null));
+                lote.agregar(fila);
+            }
+        }
+    }
+
+    private void refrescarCatalogo() {
+        for (String nombre : List.of(CacheConfig.PRODUCTO, CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA)) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        publicador.publishEvent(CambioCatalogo.completo());
+        catalogoSnapshotService.programarReconstruccion();
+        destacadosService.programarRecalculo();
+        versionCatalogoService.registrarCambio(null, null);
+    }
+
+    /**
+     * Filas validadas pendientes de escribir; nunca guarda más de un lote.
+     */
+    private class Lote {
+
+        private final Map<String, Long> categorias;
+        private final ImportacionEstado estado;
+        private final List<Object[]> filas = new ArrayList<>();
+        private final List<long[]> cambios = new ArrayList<>();
+
+        Lote(Map<String, Long> categorias, ImportacionEstado estado) {
+            this.categorias = categorias;
+            this.estado = estado;
+        }
+
+        void agregar(Map<String, String> fila) {
+            long numero = estado.getLeidas().incrementAndGet();
+            try {
+                filas.add(validar(fila));
+            } catch (IllegalArgumentException e) {
+                estado.rechazar(1, "Fila " + numero + ": " + e.getMessage());
+            }
+            if (filas.size() >= tamanoLote) {
+                escribir();
+            }
+        }
+
+        void escribir() {
+            if (filas.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(SQL_UPSERT, filas));
+                estado.getGuardadas().addAndGet(filas.size());
+                // Las fichas de productos ya existentes pueden estar en cachés HTTP
+                for (long[] cambio : cambios) {
+                    versionCatalogoService.registrarCambio(cambio[1], cambio[0]);
+                }
+            } catch (RuntimeException e) {
+                long hasta = estado.getLeidas().get();
+                estado.rechazar(filas.size(), "Lote hasta la fila " + hasta + " rechazado: " + e.getMessage());
+            } finally {
+                filas.clear();
+                cambios.clear();
+            }
+        }
+
+        private Object[] validar(Map<String, String> fila) {
+            Long id = entero(fila.get("id"), "id");
+            String nombre = texto(fila.get("nombre"));
+            if (nombre == null) {
+                throw new IllegalArgumentException("falta el nombre");
+            }
+            if (nombre.length() > LONGITUD_NOMBRE) {
+                throw new IllegalArgumentException("nombre demasiado largo");
+            }
+            String descripcion = texto(fila.get("descripcion"));
+            if (descripcion != null && descripcion.length() > LONGITUD_DESCRIPCION) {
+                throw new IllegalArgumentException("descripción demasiado larga");
+            }
+
+            BigDecimal precio;
+            try {
+                precio = new BigDecimal(requerido(fila.get("precio"), "precio").replace(',', '.'))
+                        .setScale(2, RoundingMode.HALF_UP);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("precio no válido");
+            }
+            if (precio.signum() < 0 || precio.compareTo(PRECIO_MAXIMO) > 0) {
+                throw new IllegalArgumentException("precio fuera de rango");
+            }
+
+            Long stock = entero(requerido(fila.get("stock"), "stock"), "stock");
+            if (stock < 0 || stock > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("stock fuera de rango");
+            }
+
+            String categoria = texto(fila.get("categoria_id")) != null
+                    ? texto(fila.get("categoria_id")) : texto(fila.get("categoria"));
+            Long categoriaId = categoria != null ? categorias.get(categoria.toLowerCase(Locale.ROOT)) : null;
+            if (categoriaId == null) {
+                throw new IllegalArgumentException("categoría inexistente o inactiva: " + categoria);
+            }
+
+            String activo = texto(fila.get("activo"));
+            boolean estaActivo = activo == null
+                    || List.of("true", "1", "si", "sí", "yes").contains(activo.toLowerCase(Locale.ROOT));
+
+            if (id != null) {
+                cambios.add(new long[]{id, categoriaId});
+            }
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            return new Object[]{id, nombre, descripcion, precio, stock.intValue(), categoriaId,
+                    texto(fila.get("imagen_url")), estaActivo, ahora, ahora};
+        }
+    }
+
+    private static String texto(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        String limpio = valor.trim();
+        return limpio.isEmpty() ? null : limpio;
+    }
+
+    private static String requerido(String valor, String columna) {
+        String limpio = texto(valor);
+        if (limpio == null) {
+            throw new IllegalArgumentException("falta " + columna);
+        }
+        return limpio;
+    }
+
+    private static Long entero(String valor, String columna) {
+        String limpio = texto(valor);
+        if (limpio == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(limpio);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(columna + " no es un número entero");
+        }
+    }
+
+    private static String normalizarColumna(String columna) {
+        String limpio = columna.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT)
+                .replace('í', 'i').replace('ó', 'o').replace(' ', '_');
+        return switch (limpio) {
+            case "categoriaid" -> "categoria_id";
+            case "imagenurl", "imagen" -> "imagen_url";
+            default -> limpio;
+        };
+    }
+
+    /**
+     * Las hojas de cálculo en español exportan con ';'; se mira la cabecera para decidir.
+     */
+    private static char detectarSeparador(BufferedReader lector) throws IOException {
+        lector.mark(8192);
+        String cabecera = lector.readLine();
+        lector.reset();
+        if (cabecera == null) {
+            return ',';
+        }
+        long comas = cabecera.chars().filter(c -> c == ',').count();
+        long puntosYComa = cabecera.chars().filter(c -> c == ';').count();
+        return puntosYComa > comas ? ';' : ',';
+    }
+
+    /**
+     * Lector CSV (RFC 4180) que devuelve un registro cada vez; admite comillas dobles,
+     * comillas escapadas y saltos de línea dentro de un campo.
+     */
+    private static class LectorCsv {
+
+        private final BufferedReader lector;
+        private final char separador;
+        private boolean fin;
+
+        LectorCsv(BufferedReader lector, char separador) {
+            this.lector = lector;
+            this.separador = separador;
+        }
+
+        List<String> siguiente() throws IOException {
+            if (fin) {
+                return null;
+            }
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            boolean leido = false;
+            int c;
+            while ((c = lector.read()) != -1) {
+                leido = true;
+                if (entreComillas) {
+                    if (c == '"') {
+                        lector.mark(1);
+                        int siguiente = lector.read();
+                        if (siguiente == '"') {
+                            campo.append('"');
+                        } else {
+                            entreComillas = false;
+                            if (siguiente != -1) {
+                                lector.reset();
+                            }
+                        }
+                    } else {
+                        campo.append((char) c);
+                    }
+                } else if (c == '"' && campo.isEmpty()) {
+                    entreComillas = true;
+                } else if (c == separador) {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '\n') {
+                    campos.add(campo.toString());
+                    return campos;
+                } else if (c != '\r') {
+                    campo.append((char) c);
+                }
+            }
+            fin = true;
+            if (!leido) {
+                return null;
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.dto.CambioCatalogo;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.services.AutocompletadoService;
+import com.example.tiendaperfericos.services.BusquedaService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lleva los cambios confirmados del catálogo al índice de búsqueda y al trie de autocompletado.
+ * Solo actúa tras el commit, así que un rollback no deja entradas fantasma ni las búsquedas ven
+ * productos sin confirmar. Todo se aplica en un único hilo propio, en orden: cada producto se
+ * vuelve a leer ya confirmado, y varias reconstrucciones completas seguidas se quedan en una.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndicesCatalogoListener {
+
+    private final ProductoRepository productoRepository;
+    private final BusquedaService busquedaService;
+    private final AutocompletadoService autocompletadoService;
+
+    private final AtomicBoolean reconstruccionPendiente = new AtomicBoolean();
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "indices-catalogo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Sin transacción (importación) se aplica en el momento
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarCatalogo(CambioCatalogo cambio) {
+        if (cambio.esCompleto()) {
+            if (reconstruccionPendiente.compareAndSet(false, true)) {
+                ejecutar(() -> {
+                    reconstruccionPendiente.set(false);
+                    busquedaService.reconstruir();
+                    autocompletadoService.reconstruir();
+                });
+            }
+        } else {
+            ejecutar(() -> actualizarProducto(cambio.productoId()));
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    // indexar quita el producto si ya no está activo o su categoría tampoco
+    private void actualizarProducto(Long productoId) {
+        Optional<Producto> producto = productoRepository.findById(productoId);
+        if (producto.isPresent()) {
+            busquedaService.indexar(producto.get());
+            autocompletadoService.indexar(producto.get());
+        } else {
+            busquedaService.eliminar(productoId);
+            autocompletadoService.eliminar(productoId);
+        }
+    }
+
+    private void ejecutar(Runnable tarea) {
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    tarea.run();
+                } catch (Exception e) {
+                    log.error("Error al actualizar los índices del catálogo: {}", e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Apagando: los índices se reconstruyen al arrancar
+        }
+    }
+}
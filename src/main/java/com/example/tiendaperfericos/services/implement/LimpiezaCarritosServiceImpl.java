@@ -0,0 +1,146 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.services.AlmacenCarritoService;
+import com.example.tiendaperfericos.services.LimpiezaCarritosService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Borra los carritos sin cambios desde hace más de {@code tienda.carrito.abandono-dias} junto con
+ * sus líneas. Recorre {@code carritos} por id en tramos de como mucho {@code tienda.carrito.purga-lote}
+ * carritos y borra cada tramo en su propia transacción corta, así nunca retiene bloqueos largos
+ * sobre las tablas en las que escribe la tienda. Mientras se borra un tramo, el almacén de
+ * carritos no deja cargar los de esos usuarios.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LimpiezaCarritosServiceImpl implements LimpiezaCarritosService {
+
+    private static final String SQL_CANDIDATOS = """
+            SELECT id, usuario_id FROM carritos
+            WHERE id > ? AND fecha_actualizacion < ?
+            ORDER BY id LIMIT ?
+            """;
+    // La fecha se vuelve a comprobar al bloquear y al borrar: un volcado del carrito entretanto lo salva
+    private static final String SQL_BLOQUEAR =
+            "SELECT id FROM carritos WHERE id IN (%s) AND fecha_actualizacion < ? FOR UPDATE";
+    private static final String SQL_BORRAR_ITEMS = "DELETE FROM items_carrito WHERE carrito_id IN (%s)";
+    private static final String SQL_BORRAR_CARRITOS =
+            "DELETE FROM carritos WHERE id IN (%s) AND fecha_actualizacion < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AlmacenCarritoService almacenCarritoService;
+
+    @Value("${tienda.carrito.abandono-dias:30}")
+    private long abandonoDias;
+
+    @Value("${tienda.carrito.purga-lote:500}")
+    private int lote;
+
+    private record Candidato(long carritoId, long usuarioId) {
+    }
+
+    @Scheduled(fixedDelayString = "${tienda.carrito.purga-ms:3600000}",
+            initialDelayString = "${tienda.carrito.purga-ms:3600000}")
+    public void purgarProgramado() {
+        try {
+            purgarAbandonados();
+        } catch (RuntimeException e) {
+            log.error("Error al purgar carritos abandonados: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve cuántos carritos se borraron. Los carritos cargados en memoria se saltan aunque
+     * su fecha en la base de datos sea antigua: su estado bueno es el de memoria. La comprobación
+     * y el borrado van dentro de {@link AlmacenCarritoService#purgarSinCargar}, así que ningún
+     * usuario puede cargar su carrito entre una cosa y otra.
+     */
+    @Override
+    public int purgarAbandonados() {
+        long inicio = System.nanoTime();
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusDays(abandonoDias));
+        int carritosBorrados = 0;
+        int itemsBorrados = 0;
+        int tramos = 0;
+        long ultimoId = 0;
+
+        while (true) {
+            List<Candidato> candidatos = jdbcTemplate.query(SQL_CANDIDATOS,
+                    (rs, i) -> new Candidato(rs.getLong(1), rs.getLong(2)), ultimoId, limite, lote);
+            if (candidatos.isEmpty()) {
+                break;
+            }
+            ultimoId = candidatos.get(candidatos.size() - 1).carritoId();
+
+            List<Long> usuarioIds = candidatos.stream().map(Candidato::usuarioId).toList();
+            int[] borrados = almacenCarritoService.purgarSinCargar(usuarioIds, libres -> {
+                List<Long> aBorrar = new ArrayList<>(libres.size());
+                for (Candidato candidato : candidatos) {
+                    if (libres.contains(candidato.usuarioId())) {
+                        aBorrar.add(candidato.carritoId());
+                    }
+                }
+                return aBorrar.isEmpty() ? null : borrarTramo(aBorrar, limite);
+            });
+            if (borrados != null) {
+                itemsBorrados += borrados[0];
+                carritosBorrados += borrados[1];
+                tramos++;
+            }
+            if (candidatos.size() < lote) {
+                break;
+            }
+        }
+
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        if (carritosBorrados > 0) {
+            log.info("Carritos abandonados purgados: {} carritos y {} líneas en {} tramos, {} ms",
+                    carritosBorrados, itemsBorrados, tramos, ms);
+        } else {
+            log.debug("Sin carritos abandonados que purgar ({} ms)", ms);
+        }
+        return carritosBorrados;
+    }
+
+    // Bloquea las filas que siguen abandonadas y borra solo esas, líneas y carrito
+    private int[] borrarTramo(List<Long> carritoIds, Timestamp limite) {
+        int[] borrados = transactionTemplate.execute(estado -> {
+            List<Long> bloqueados = jdbcTemplate.queryForList(SQL_BLOQUEAR.formatted(marcas(carritoIds.size())),
+                    Long.class, conLimite(carritoIds, limite));
+            if (bloqueados.isEmpty()) {
+                return new int[2];
+            }
+            String enBloqueados = marcas(bloqueados.size());
+            return new int[]{
+                    jdbcTemplate.update(SQL_BORRAR_ITEMS.formatted(enBloqueados), bloqueados.toArray()),
+                    jdbcTemplate.update(SQL_BORRAR_CARRITOS.formatted(enBloqueados), conLimite(bloqueados, limite))
+            };
+        });
+        return borrados != null ? borrados : new int[2];
+    }
+
+    private static String marcas(int cantidad) {
+        return String.join(",", Collections.nCopies(cantidad, "?"));
+    }
+
+    private static Object[] conLimite(List<Long> carritoIds, Timestamp limite) {
+        Object[] parametros = Arrays.copyOf(carritoIds.toArray(), carritoIds.size() + 1);
+        parametros[carritoIds.size()] = limite;
+        return parametros;
+    }
+}
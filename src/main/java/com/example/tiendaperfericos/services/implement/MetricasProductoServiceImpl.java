@@ -0,0 +1,144 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoMetricasRepository;
+import com.example.tiendaperfericos.entity.ProductoMetricas;
+import com.example.tiendaperfericos.services.MetricasProductoService;
+import com.example.tiendaperfericos.util.Transacciones;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de vistas y de "añadir al carrito" por producto. Cada evento solo incrementa un
+ * {@link LongAdder} en memoria; cada pocos segundos los incrementos acumulados se suman a
+ * {@code producto_metricas} con un único lote de upserts, y al apagar se vuelca lo pendiente.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MetricasProductoServiceImpl implements MetricasProductoService {
+
+    // El SELECT sobre productos descarta ids inexistentes sin que falle el lote entero; la tabla
+    // derivada da nombre a la fila nueva en lugar de VALUES(), obsoleto desde MySQL 8.0.20
+    private static final String SQL_UPSERT = """
+            INSERT INTO producto_metricas (producto_id, vistas, agregados_carrito, fecha_actualizacion)
+            SELECT * FROM (
+                SELECT id AS producto_id, ? AS vistas, ? AS agregados_carrito, ? AS fecha_actualizacion
+                FROM productos WHERE id = ?
+            ) AS nuevo
+            ON DUPLICATE KEY UPDATE vistas = vistas + nuevo.vistas,
+                                    agregados_carrito = agregados_carrito + nuevo.agregados_carrito,
+                                    fecha_actualizacion = nuevo.fecha_actualizacion
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductoMetricasRepository productoMetricasRepository;
+
+    private final Map<Long, Contadores> contadores = new ConcurrentHashMap<>();
+
+    private static class Contadores {
+        final LongAdder vistas = new LongAdder();
+        final LongAdder agregadosCarrito = new LongAdder();
+        // Lo marca volcar() al soltar un contador sin actividad; ver sumar()
+        volatile boolean retirado;
+    }
+
+    @Override
+    public void registrarVista(Long productoId) {
+        sumar(productoId, 1, 0);
+    }
+
+    @Override
+    public void registrarAgregadoCarrito(Long productoId) {
+        Transacciones.trasConfirmar(() -> sumar(productoId, 0, 1));
+    }
+
+    @Scheduled(fixedDelayString = "${tienda.metricas.volcado-ms:5000}",
+            initialDelayString = "${tienda.metricas.volcado-ms:5000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        volcar();
+    }
+
+    @Override
+    public synchronized void volcar() {
+        List<Object[]> filas = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        contadores.forEach((productoId, contador) -> {
+            long vistas = contador.vistas.sumThenReset();
+            long agregados = contador.agregadosCarrito.sumThenReset();
+            if (vistas == 0 && agregados == 0) {
+                // Sin actividad desde el último volcado: se suelta para no crecer sin límite
+                contadores.computeIfPresent(productoId, (id, actual) ->
+                        actual == contador && soltar(actual) ? null : actual);
+                return;
+            }
+            filas.add(new Object[]{vistas, agregados, ahora, productoId});
+            ids.add(productoId);
+            deltas.add(new long[]{vistas, agregados});
+        });
+        if (filas.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(SQL_UPSERT, filas);
+        } catch (RuntimeException e) {
+            log.error("Error al volcar métricas de {} productos: {}", filas.size(), e.getMessage());
+            // Se devuelven a memoria para reintentarlo en el siguiente volcado
+            for (int i = 0; i < ids.size(); i++) {
+                sumar(ids.get(i), deltas.get(i)[0], deltas.get(i)[1]);
+            }
+        }
+    }
+
+    // Un incremento puede caer en un contador que volcar() acaba de soltar: quien lo ve retirado
+    // después de sumar pasa lo que haya en él al contador vigente, así no se pierde ninguno
+    private void sumar(Long productoId, long vistas, long agregados) {
+        while (vistas != 0 || agregados != 0) {
+            Contadores contador = contadores.computeIfAbsent(productoId, id -> new Contadores());
+            contador.vistas.add(vistas);
+            contador.agregadosCarrito.add(agregados);
+            if (!contador.retirado) {
+                return;
+            }
+            vistas = contador.vistas.sumThenReset();
+            agregados = contador.agregadosCarrito.sumThenReset();
+        }
+    }
+
+    // Se marca antes de mirar los contadores: un incremento que no vea la marca ya está en la suma
+    private static boolean soltar(Contadores contador) {
+        contador.retirado = true;
+        if (contador.vistas.sum() == 0 && contador.agregadosCarrito.sum() == 0) {
+            return true;
+        }
+        contador.retirado = false;
+        return false;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoMetricas> findMasVistos() {
+        return productoMetricasRepository.findTop20ByOrderByVistasDesc();
+    }
+}
@@ -5,13 +5,20 @@ import com.example.tiendaperfericos.Repostory.CarritoRepository;
 import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
 import com.example.tiendaperfericos.Repostory.ItemCarritoRepository;
 import com.example.tiendaperfericos.Repostory.PedidoRepository;
+import com.example.tiendaperfericos.dto.PedidoResumenDTO;
 import com.example.tiendaperfericos.entity.Carrito;
 import com.example.tiendaperfericos.entity.DetallePedido;
 import com.example.tiendaperfericos.entity.ItemCarrito;
 import com.example.tiendaperfericos.entity.Pedido;
 import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import com.example.tiendaperfericos.services.AlmacenCarritoService;
+import com.example.tiendaperfericos.services.EventosService;
 import com.example.tiendaperfericos.services.PedidoService;
 import com.example.tiendaperfericos.services.ProductoService;
+import com.example.tiendaperfericos.services.RelacionadosService;
+import com.example.tiendaperfericos.services.ReservaStockService;
+import com.example.tiendaperfericos.util.Dinero;
+import com.example.tiendaperfericos.util.Transacciones;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +40,10 @@ public class PedidoServiceImpl implements PedidoService {
     private final CarritoRepository carritoRepository;
     private final ItemCarritoRepository itemCarritoRepository;
     private final ProductoService productoService;
+    private final RelacionadosService relacionadosService;
+    private final AlmacenCarritoService almacenCarritoService;
+    private final EventosService eventosService;
+    private final ReservaStockService reservaStockService;
 
     @Override
     @Transactional(readOnly = true)
@@ -51,6 +63,18 @@ public class PedidoServiceImpl implements PedidoService {
         return pedidoRepository.findPedidosRecientesByUsuarioId(usuarioId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<PedidoResumenDTO> findResumenes() {
+        return pedidoRepository.findResumenesOrderByFechaDesc();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PedidoResumenDTO> findResumenesByUsuarioId(Long usuarioId) {
+        return pedidoRepository.findResumenesByUsuarioId(usuarioId);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Pedido> findByEstado(EstadoPedido estado) {
@@ -60,6 +84,8 @@ public class PedidoServiceImpl implements PedidoService {
     @Override
     @Transactional
     public Pedido crearPedidoDesdeCarrito(Long usuarioId, String direccionEntrega, String telefonoContacto) {
+        // Los cambios del carrito pueden estar aún en memoria: se escriben antes de leerlo
+        almacenCarritoService.volcar(usuarioId);
         Carrito carrito = carritoRepository.findByUsuarioId(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Carrito no encontrado"));
 
@@ -68,8 +94,12 @@ public class PedidoServiceImpl implements PedidoService {
         }
 
 
+        // El stock que retienen en sus carritos otros usuarios no está disponible para este pedido.
+        // Es un aviso temprano: quien impide vender de más es el descuento condicional de actualizarStock
         for (ItemCarrito item : carrito.getItems()) {
-            if (item.getProducto().getStock() < item.getCantidad()) {
+            int disponible = reservaStockService.disponible(item.getProducto().getId(), usuarioId,
+                    item.getProducto().getStock());
+            if (disponible < item.getCantidad()) {
                 throw new RuntimeException("Stock insuficiente para: " + item.getProducto().getNombre());
             }
         }
@@ -86,7 +116,8 @@ public class PedidoServiceImpl implements PedidoService {
         Pedido pedidoGuardado = pedidoRepository.save(pedido);
 
 
-        BigDecimal total = BigDecimal.ZERO;
+        long total = 0;
+        List<Long> productoIds = new ArrayList<>(carrito.getItems().size());
         for (ItemCarrito item : carrito.getItems()) {
             DetallePedido detalle = DetallePedido.builder()
                     .pedido(pedidoGuardado)
@@ -96,19 +127,23 @@ public class PedidoServiceImpl implements PedidoService {
                     .build();
 
             detallePedidoRepository.save(detalle);
-            total = total.add(detalle.getSubtotal());
+            total = Math.addExact(total, detalle.getSubtotalCentavos());
 
 
             productoService.actualizarStock(item.getProducto().getId(), item.getCantidad());
+            productoIds.add(item.getProducto().getId());
         }
 
 
-        pedidoGuardado.setTotal(total);
+        pedidoGuardado.setTotal(Dinero.aDecimal(total));
         Pedido pedidoFinal = pedidoRepository.save(pedidoGuardado);
 
 
         carrito.limpiarCarrito();
         carritoRepository.save(carrito);
+        cerrarCarritoTrasConfirmar(usuarioId);
+        eventosService.publicarCarrito(usuarioId, 0);
+        relacionadosService.registrarPedido(productoIds);
 
         log.info("Pedido {} creado exitosamente para el usuario {}", pedidoFinal.getId(), usuarioId);
         return pedidoFinal;
@@ -169,4 +204,13 @@ public class PedidoServiceImpl implements PedidoService {
         LocalDateTime fecha = LocalDateTime.now().minusDays(dias);
         return pedidoRepository.findPedidosRecientes(fecha);
     }
-}
\ No newline at end of file
+
+    // Una vez confirmado el pedido, el carrito vaciado manda sobre la copia en memoria y las
+    // reservas del usuario se dan por consumidas (el stock ya se descontó)
+    private void cerrarCarritoTrasConfirmar(Long usuarioId) {
+        Transacciones.trasConfirmar(() -> {
+            almacenCarritoService.descartar(usuarioId);
+            reservaStockService.confirmar(usuarioId);
+        });
+    }
+}
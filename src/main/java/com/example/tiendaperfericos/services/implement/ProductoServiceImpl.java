@@ -3,18 +3,37 @@ package com.example.tiendaperfericos.services.implement;
 
 import com.example.tiendaperfericos.Repostory.CategoriaRepository;
 import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoSpecifications;
+import com.example.tiendaperfericos.config.CacheConfig;
+import com.example.tiendaperfericos.dto.CambioCatalogo;
+import com.example.tiendaperfericos.dto.FacetasTienda;
+import com.example.tiendaperfericos.dto.FiltroTienda;
+import com.example.tiendaperfericos.dto.PaginaProductos;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
 import com.example.tiendaperfericos.entity.Categoria;
 import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.services.BusquedaService;
+import com.example.tiendaperfericos.services.CatalogoSnapshotService;
+import com.example.tiendaperfericos.services.DestacadosService;
+import com.example.tiendaperfericos.services.EventosService;
 import com.example.tiendaperfericos.services.ProductoService;
+import com.example.tiendaperfericos.services.RelacionadosService;
+import com.example.tiendaperfericos.services.VersionCatalogoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -23,8 +42,19 @@ public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoRepository productoRepository;
     private final CategoriaRepository categoriaRepository;
+    private final BusquedaService busquedaService;
+    private final CatalogoSnapshotService catalogoSnapshotService;
+    private final DestacadosService destacadosService;
+    private final RelacionadosService relacionadosService;
+    private final VersionCatalogoService versionCatalogoService;
+    private final EventosService eventosService;
+    private final ApplicationEventPublisher publicador;
+
+    private static final int MAX_RESULTADOS_BUSQUEDA = 500;
+    private static final BigDecimal ANCHO_RANGO_PRECIO = new BigDecimal("50");
 
     @Override
+    @Cacheable(CacheConfig.PRODUCTOS)
     @Transactional(readOnly = true)
     public List<Producto> findAll() {
         return productoRepository.findProductosActivos();
@@ -32,11 +62,23 @@ public class ProductoServiceImpl implements ProductoService {
 
     @Override
     @Transactional(readOnly = true)
+    public List<ProductoResumenDTO> findResumenesActivos() {
+        return productoRepository.findResumenesActivos();
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTO, key = "#id")
+    @Transactional(readOnly = true)
     public Optional<Producto> findById(Long id) {
         return productoRepository.findByIdAndActivoTrue(id);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTO, key = "#result.id"),
+            @CacheEvict(cacheNames = {CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA},
+                    allEntries = true)
+    })
     @Transactional
     public Producto save(Producto producto) {
         if (producto.getCategoria() != null && producto.getCategoria().getId() != null) {
@@ -44,19 +86,37 @@ public class ProductoServiceImpl implements ProductoService {
                     .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
             producto.setCategoria(categoria);
         }
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        publicador.publishEvent(CambioCatalogo.producto(guardado.getId()));
+        catalogoSnapshotService.programarReconstruccion();
+        versionCatalogoService.registrarCambio(
+                guardado.getCategoria() != null ? guardado.getCategoria().getId() : null, guardado.getId());
+        if (guardado.getStock() != null) {
+            eventosService.publicarStock(guardado.getId(), guardado.getStock());
+        }
+        return guardado;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTO, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA},
+                    allEntries = true)
+    })
     @Transactional
     public void deleteById(Long id) {
         productoRepository.findById(id).ifPresent(producto -> {
             producto.setActivo(false);
             productoRepository.save(producto);
+            publicador.publishEvent(CambioCatalogo.producto(id));
+            catalogoSnapshotService.programarReconstruccion();
+            versionCatalogoService.registrarCambio(producto.getCategoria().getId(), id);
+            destacadosService.notificarAgotado(id);
         });
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_POR_CATEGORIA, key = "#categoriaId")
     @Transactional(readOnly = true)
     public List<Producto> findByCategoria(Long categoriaId) {
         return productoRepository.findByCategoriaIdAndActivoTrue(categoriaId);
@@ -71,19 +131,27 @@ public class ProductoServiceImpl implements ProductoService {
     @Override
     @Transactional(readOnly = true)
     public List<Producto> findByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax) {
-        return productoRepository.findByPrecioBetween(precioMin, precioMax);
+        List<Long> ids = catalogoSnapshotService.findIdsByPrecioBetween(null, precioMin, precioMax);
+        return ids != null ? cargarEnOrden(ids) : productoRepository.findByPrecioBetween(precioMin, precioMax);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Producto> findByCategoriaAndPrecioBetween(Long categoriaId, BigDecimal precioMin, BigDecimal precioMax) {
-        return productoRepository.findByCategoriaAndPrecioBetween(categoriaId, precioMin, precioMax);
+        List<Long> ids = catalogoSnapshotService.findIdsByPrecioBetween(categoriaId, precioMin, precioMax);
+        return ids != null
+                ? cargarEnOrden(ids)
+                : productoRepository.findByCategoriaAndPrecioBetween(categoriaId, precioMin, precioMax);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Producto> buscarPorTermino(String termino) {
-        return productoRepository.buscarPorTermino(termino);
+        List<Long> ids = busquedaService.buscar(termino, MAX_RESULTADOS_BUSQUEDA);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return ordenarSegun(ids, productoRepository.findAllById(ids), Producto::getId);
     }
 
     @Override
@@ -111,17 +179,31 @@ public class ProductoServiceImpl implements ProductoService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTO, key = "#productoId"),
+            @CacheEvict(cacheNames = {CacheConfig.PRODUCTOS, CacheConfig.PRODUCTOS_POR_CATEGORIA},
+                    allEntries = true)
+    })
     @Transactional
     public void actualizarStock(Long productoId, Integer cantidad) {
-        productoRepository.findById(productoId).ifPresent(producto -> {
-            int nuevoStock = producto.getStock() - cantidad;
-            if (nuevoStock < 0) {
-                throw new RuntimeException("Stock insuficiente para el producto: " + producto.getNombre());
-            }
-            producto.setStock(nuevoStock);
-            productoRepository.save(producto);
-            log.info("Stock actualizado para producto {}: {} unidades", producto.getNombre(), nuevoStock);
-        });
+        int actualizados = productoRepository.descontarStock(productoId, cantidad);
+        // Lo que quedó tras el UPDATE, leído de la base de datos y no de la entidad cargada
+        List<Object[]> filas = productoRepository.findStockById(productoId);
+        if (filas.isEmpty()) {
+            return;
+        }
+        Object[] fila = filas.get(0);
+        if (actualizados == 0) {
+            throw new RuntimeException("Stock insuficiente para el producto: " + fila[0]);
+        }
+        int nuevoStock = (Integer) fila[1];
+        catalogoSnapshotService.programarReconstruccion();
+        versionCatalogoService.registrarCambio((Long) fila[2], productoId);
+        if (nuevoStock == 0) {
+            destacadosService.notificarAgotado(productoId);
+        }
+        eventosService.publicarStock(productoId, nuevoStock);
+        log.info("Stock actualizado para producto {}: {} unidades", fila[0], nuevoStock);
     }
 
     @Override
@@ -131,11 +213,237 @@ public class ProductoServiceImpl implements ProductoService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<Producto> findProductosDestacados() {
-        return productoRepository.findByActivoTrue().stream()
-                .filter(p -> p.getStock() > 0)
-                .limit(8)
-                .toList();
+        return destacadosService.obtenerDestacados();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Producto> findRelacionados(Producto producto, int limite) {
+        List<Long> ids = relacionadosService.relacionados(producto.getId(), limite);
+        List<Producto> relacionados = new ArrayList<>(limite);
+        if (!ids.isEmpty()) {
+            Specification<Producto> spec = ProductoSpecifications.activosEnCategoriaActiva()
+                    .and(ProductoSpecifications.conIds(ids));
+            relacionados.addAll(ordenarSegun(ids, productoRepository.findAll(spec), Producto::getId));
+        }
+        if (relacionados.size() >= limite) {
+            return relacionados;
+        }
+
+        // Sin suficientes co-compras se completa con la misma categoría
+        Set<Long> excluidos = new HashSet<>(ids);
+        excluidos.add(producto.getId());
+        Specification<Producto> spec = ProductoSpecifications.activosEnCategoriaActiva()
+                .and(ProductoSpecifications.deCategoria(producto.getCategoria().getId()));
+        int faltantes = limite - relacionados.size();
+        productoRepository.findBy(spec, q -> q.sortBy(Sort.by(Sort.Direction.DESC, "id"))
+                        .limit(faltantes + excluidos.size()).all())
+                .stream()
+                .filter(p -> !excluidos.contains(p.getId()))
+                .limit(faltantes)
+                .forEach(relacionados::add);
+        return relacionados;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaProductos findPaginaTienda(FiltroTienda filtro, String cursor, int tamano) {
+        String[] posicion = decodificarCursor(cursor);
+        String orden = filtro.getOrden() != null ? filtro.getOrden() : "";
+        List<ProductoResumenDTO> productos;
+
+        if (catalogoSnapshotService.puedeResolver(filtro)) {
+            productos = catalogoSnapshotService.findPaginaTienda(filtro,
+                    posicion != null && orden.startsWith("precio") ? new BigDecimal(posicion[0]) : null,
+                    posicion != null ? Long.valueOf(posicion[1]) : null,
+                    tamano + 1);
+        } else {
+            List<Long> ids = resolverBusqueda(filtro);
+            if (ids != null && orden.isEmpty()) {
+                return paginarPorRelevancia(especificacionTienda(filtro, ids, true, true), ids, posicion, tamano);
+            }
+            productos = buscarPaginaEnBaseDeDatos(filtro, ids, posicion, orden, tamano);
+        }
+
+        boolean hayMas = productos.size() > tamano;
+        if (hayMas) {
+            productos = productos.subList(0, tamano);
+        }
+        String siguienteCursor = null;
+        if (hayMas) {
+            ProductoResumenDTO ultimo = productos.get(productos.size() - 1);
+            siguienteCursor = codificarCursor(valorCursor(ultimo, orden), ultimo.getId());
+        }
+        return new PaginaProductos(productos, siguienteCursor, hayMas);
+    }
+
+    private List<ProductoResumenDTO> buscarPaginaEnBaseDeDatos(FiltroTienda filtro, List<Long> ids, String[] posicion,
+                                                     String orden, int tamano) {
+        Specification<Producto> spec = especificacionTienda(filtro, ids, true, true);
+
+        Sort sort;
+        if (orden.startsWith("precio") || orden.startsWith("nombre")) {
+            String campo = orden.startsWith("precio") ? "precio" : "nombre";
+            boolean ascendente = orden.endsWith("-asc");
+            Sort.Direction direccion = ascendente ? Sort.Direction.ASC : Sort.Direction.DESC;
+            sort = Sort.by(direccion, campo).and(Sort.by(direccion, "id"));
+            if (posicion != null) {
+                Long cursorId = Long.valueOf(posicion[1]);
+                spec = spec.and(campo.equals("precio")
+                        ? ProductoSpecifications.despuesDe(campo, new BigDecimal(posicion[0]), cursorId, ascendente)
+                        : ProductoSpecifications.despuesDe(campo, posicion[0], cursorId, ascendente));
+            }
+        } else {
+            sort = Sort.by(Sort.Direction.ASC, "id");
+            if (posicion != null) {
+                spec = spec.and(ProductoSpecifications.despuesDeId(Long.valueOf(posicion[1]), true));
+            }
+        }
+
+        return productoRepository.buscarResumenes(spec, sort, tamano + 1);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FacetasTienda calcularFacetas(FiltroTienda filtro) {
+        if (catalogoSnapshotService.puedeResolver(filtro)) {
+            return catalogoSnapshotService.calcularFacetas(filtro, ANCHO_RANGO_PRECIO);
+        }
+        Specification<Producto> spec = especificacionTienda(filtro, resolverBusqueda(filtro), false, false);
+        List<Object[]> filas = productoRepository.agregarFacetas(
+                spec, filtro.getPrecioMin(), filtro.getPrecioMax(), ANCHO_RANGO_PRECIO);
+
+        Map<Long, FacetasTienda.FacetaCategoria> categorias = new HashMap<>();
+        TreeMap<Integer, Long> histograma = new TreeMap<>();
+        long totalCategorias = 0;
+        long total = 0;
+
+        for (Object[] fila : filas) {
+            Long categoriaId = (Long) fila[0];
+            int rango = ((Number) fila[2]).intValue();
+            boolean enRango = ((Number) fila[3]).intValue() == 1;
+            long cantidad = ((Number) fila[4]).longValue();
+            boolean categoriaCoincide = filtro.getCategoriaId() == null || filtro.getCategoriaId().equals(categoriaId);
+
+            FacetasTienda.FacetaCategoria faceta = categorias.computeIfAbsent(categoriaId,
+                    id -> new FacetasTienda.FacetaCategoria(id, (String) fila[1], 0));
+            if (enRango) {
+                faceta.setCantidad(faceta.getCantidad() + cantidad);
+                totalCategorias += cantidad;
+            }
+            if (categoriaCoincide) {
+                histograma.merge(rango, cantidad, Long::sum);
+            }
+            if (enRango && categoriaCoincide) {
+                total += cantidad;
+            }
+        }
+
+        List<FacetasTienda.FacetaCategoria> listaCategorias = new ArrayList<>(categorias.values());
+        listaCategorias.sort(Comparator.comparing(FacetasTienda.FacetaCategoria::getNombre, String.CASE_INSENSITIVE_ORDER));
+
+        List<FacetasTienda.RangoPrecio> rangos = new ArrayList<>(histograma.size());
+        histograma.forEach((rango, cantidad) -> {
+            BigDecimal desde = ANCHO_RANGO_PRECIO.multiply(BigDecimal.valueOf(rango));
+            rangos.add(new FacetasTienda.RangoPrecio(desde, desde.add(ANCHO_RANGO_PRECIO), cantidad));
+        });
+
+        return new FacetasTienda(listaCategorias, rangos, totalCategorias, total);
+    }
+
+    private List<Long> resolverBusqueda(FiltroTienda filtro) {
+        String termino = filtro.getTermino();
+        return termino != null ? busquedaService.buscar(termino, MAX_RESULTADOS_BUSQUEDA) : null;
+    }
+
+    private Specification<Producto> especificacionTienda(FiltroTienda filtro, List<Long> ids,
+                                                         boolean conCategoria, boolean conPrecio) {
+        Specification<Producto> spec = ProductoSpecifications.activosEnCategoriaActiva();
+        if (conCategoria && filtro.getCategoriaId() != null) {
+            spec = spec.and(ProductoSpecifications.deCategoria(filtro.getCategoriaId()));
+        }
+        if (conPrecio && filtro.getPrecioMin() != null) {
+            spec = spec.and(ProductoSpecifications.precioDesde(filtro.getPrecioMin()));
+        }
+        if (conPrecio && filtro.getPrecioMax() != null) {
+            spec = spec.and(ProductoSpecifications.precioHasta(filtro.getPrecioMax()));
+        }
+        if (filtro.isEnStock()) {
+            spec = spec.and(ProductoSpecifications.conStock());
+        }
+        if (ids != null) {
+            spec = spec.and(ProductoSpecifications.conIds(ids));
+        }
+        return spec;
+    }
+
+    private PaginaProductos paginarPorRelevancia(Specification<Producto> spec, List<Long> ids,
+                                                 String[] posicion, int tamano) {
+        List<ProductoResumenDTO> candidatos = ordenarSegun(ids,
+                productoRepository.buscarResumenes(spec, Sort.unsorted(), ids.size()), ProductoResumenDTO::getId);
+
+        int desde = posicion != null ? Integer.parseInt(posicion[0]) : 0;
+        int hasta = Math.min(desde + tamano, candidatos.size());
+        List<ProductoResumenDTO> productos = desde < hasta ? candidatos.subList(desde, hasta) : List.of();
+        boolean hayMas = hasta < candidatos.size();
+        String siguienteCursor = hayMas
+                ? codificarCursor(String.valueOf(hasta), productos.get(productos.size() - 1).getId())
+                : null;
+        return new PaginaProductos(productos, siguienteCursor, hayMas);
+    }
+
+    // Ids ya resueltos por el snapshot en orden de precio; las entidades salen de esta transacción
+    private List<Producto> cargarEnOrden(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return ordenarSegun(ids, productoRepository.findByIdInAndActivoTrue(ids), Producto::getId);
+    }
+
+    private <T> List<T> ordenarSegun(List<Long> ids, List<T> elementos, Function<T, Long> id) {
+        Map<Long, T> porId = new HashMap<>();
+        elementos.forEach(e -> porId.put(id.apply(e), e));
+        List<T> ordenados = new ArrayList<>(elementos.size());
+        for (Long clave : ids) {
+            T elemento = porId.get(clave);
+            if (elemento != null) {
+                ordenados.add(elemento);
+            }
+        }
+        return ordenados;
+    }
+
+    private String valorCursor(ProductoResumenDTO ultimo, String orden) {
+        if (orden != null && orden.startsWith("precio")) {
+            return ultimo.getPrecio().toPlainString();
+        }
+        if (orden != null && orden.startsWith("nombre")) {
+            return ultimo.getNombre();
+        }
+        return "";
+    }
+
+    static String codificarCursor(String valor, Long id) {
+        String crudo = valor + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String crudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = crudo.lastIndexOf('|');
+            if (separador < 0) {
+                throw new IllegalArgumentException("sin separador");
+            }
+            String[] posicion = {crudo.substring(0, separador), crudo.substring(separador + 1)};
+            Long.parseLong(posicion[1]);
+            return posicion;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,292 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import com.example.tiendaperfericos.services.RelacionadosService;
+import com.example.tiendaperfericos.util.Transacciones;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Índice de productos comprados juntos. Cada producto guarda sus co-compras en una tabla
+ * dispersa de enteros y publica solo los K vecinos con más pedidos en común.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RelacionadosServiceImpl implements RelacionadosService {
+
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tienda.relacionados.top-k:12}")
+    private int topK;
+
+    // Estado de escritura, protegido por el monitor de la instancia
+    private final Map<Long, Integer> indicePorId = new HashMap<>();
+    private long[] idsPorIndice = new long[256];
+    private ContadorVecinos[] contadores = new ContadorVecinos[256];
+
+    // Vista de lectura: ids de los vecinos más frecuentes, ordenados de mayor a menor
+    private volatile Map<Long, long[]> mejoresVecinos = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    @Override
+    public List<Long> relacionados(Long productoId, int limite) {
+        long[] vecinos = mejoresVecinos.get(productoId);
+        if (vecinos == null) {
+            return List.of();
+        }
+        List<Long> resultado = new ArrayList<>(Math.min(limite, vecinos.length));
+        for (int i = 0; i < vecinos.length && resultado.size() < limite; i++) {
+            resultado.add(vecinos[i]);
+        }
+        return resultado;
+    }
+
+    @Override
+    public void registrarPedido(Collection<Long> productoIds) {
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productoIds));
+        if (ids.size() < 2) {
+            return;
+        }
+        Transacciones.trasConfirmar(() -> aplicarPedido(ids));
+    }
+
+    @Override
+    public synchronized void reconstruir() {
+        indicePorId.clear();
+        idsPorIndice = new long[256];
+        contadores = new ContadorVecinos[256];
+
+        Integer pedidos = transactionTemplate.execute(estado -> {
+            int total = 0;
+            long pedidoActual = -1;
+            int[] productos = new int[16];
+            int cantidad = 0;
+            try (Stream<Object[]> filas = detallePedidoRepository.streamProductosPorPedido(EstadoPedido.CANCELADO)) {
+                Iterator<Object[]> it = filas.iterator();
+                while (it.hasNext()) {
+                    Object[] fila = it.next();
+                    long pedidoId = (Long) fila[0];
+                    if (pedidoId != pedidoActual) {
+                        acumularPares(productos, cantidad);
+                        pedidoActual = pedidoId;
+                        cantidad = 0;
+                        total++;
+                    }
+                    if (cantidad == productos.length) {
+                        productos = Arrays.copyOf(productos, cantidad * 2);
+                    }
+                    productos[cantidad++] = indiceDe((Long) fila[1]);
+                }
+                acumularPares(productos, cantidad);
+            }
+            return total;
+        });
+
+        Map<Long, long[]> nuevos = new ConcurrentHashMap<>();
+        for (int i = 0; i < indicePorId.size(); i++) {
+            publicar(i, nuevos);
+        }
+        mejoresVecinos = nuevos;
+        log.info("Índice de relacionados construido: {} pedidos, {} productos", pedidos, indicePorId.size());
+    }
+
+    private synchronized void aplicarPedido(List<Long> ids) {
+        int[] productos = new int[ids.size()];
+        for (int i = 0; i < productos.length; i++) {
+            productos[i] = indiceDe(ids.get(i));
+        }
+        acumularPares(productos, productos.length);
+        for (int indice : productos) {
+            publicar(indice, mejoresVecinos);
+        }
+    }
+
+    private void acumularPares(int[] productos, int cantidad) {
+        if (cantidad < 2) {
+            return;
+        }
+        // Un producto repetido en el mismo pedido cuenta una sola vez
+        int[] distintos = Arrays.stream(productos, 0, cantidad).distinct().toArray();
+        for (int i = 0; i < distintos.length; i++) {
+            for (int j = i + 1; j < distintos.length; j++) {
+                contadores[distintos[i]].incrementar(distintos[j]);
+                contadores[distintos[j]].incrementar(distintos[i]);
+            }
+        }
+    }
+
+    private int indiceDe(Long productoId) {
+        Integer indice = indicePorId.get(productoId);
+        if (indice != null) {
+            return indice;
+        }
+        int nuevo = indicePorId.size();
+        if (nuevo == idsPorIndice.length) {
+            idsPorIndice = Arrays.copyOf(idsPorIndice, nuevo * 2);
+            contadores = Arrays.copyOf(contadores, nuevo * 2);
+        }
+        idsPorIndice[nuevo] = productoId;
+        contadores[nuevo] = new ContadorVecinos();
+        indicePorId.put(productoId, nuevo);
+        return nuevo;
+    }
+
+    private void publicar(int indice, Map<Long, long[]> destino) {
+        int[] mejores = contadores[indice].mejores(topK);
+        if (mejores.length == 0) {
+            return;
+        }
+        long[] ids = new long[mejores.length];
+        for (int i = 0; i < mejores.length; i++) {
+            ids[i] = idsPorIndice[mejores[i]];
+        }
+        destino.put(idsPorIndice[indice], ids);
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto índice de vecino -> pedidos en común.
+     */
+    private static final class ContadorVecinos {
+        private static final int VACIO = -1;
+
+        private int[] claves = nuevaTabla(8);
+        private int[] conteos = new int[8];
+        private int tamano;
+
+        void incrementar(int vecino) {
+            if ((tamano + 1) * 4 > claves.length * 3) {
+                redimensionar();
+            }
+            int mascara = claves.length - 1;
+            int pos = mezclar(vecino) & mascara;
+            while (claves[pos] != VACIO && claves[pos] != vecino) {
+                pos = (pos + 1) & mascara;
+            }
+            if (claves[pos] == VACIO) {
+                claves[pos] = vecino;
+                tamano++;
+            }
+            conteos[pos]++;
+        }
+
+        /** Índices de los k vecinos con más pedidos en común; en empate, el más antiguo primero. */
+        int[] mejores(int k) {
+            int limite = Math.min(k, tamano);
+            if (limite == 0) {
+                return new int[0];
+            }
+            // Montículo mínimo de tamaño k sobre las posiciones de la tabla
+            int[] monticulo = new int[limite];
+            int enMonticulo = 0;
+            for (int pos = 0; pos < claves.length; pos++) {
+                if (claves[pos] == VACIO) {
+                    continue;
+                }
+                if (enMonticulo < limite) {
+                    monticulo[enMonticulo++] = pos;
+                    subir(monticulo, enMonticulo - 1);
+                } else if (antes(pos, monticulo[0])) {
+                    monticulo[0] = pos;
+                    bajar(monticulo, limite);
+                }
+            }
+            Integer[] orden = new Integer[limite];
+            for (int i = 0; i < limite; i++) {
+                orden[i] = monticulo[i];
+            }
+            Arrays.sort(orden, (a, b) -> antes(a, b) ? -1 : antes(b, a) ? 1 : 0);
+            int[] resultado = new int[limite];
+            for (int i = 0; i < limite; i++) {
+                resultado[i] = claves[orden[i]];
+            }
+            return resultado;
+        }
+
+        // true si la posición a debe ir antes que b en el ranking
+        private boolean antes(int a, int b) {
+            return conteos[a] != conteos[b] ? conteos[a] > conteos[b] : claves[a] < claves[b];
+        }
+
+        private void subir(int[] monticulo, int i) {
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (!antes(monticulo[padre], monticulo[i])) {
+                    break;
+                }
+                intercambiar(monticulo, i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int[] monticulo, int n) {
+            int i = 0;
+            while (true) {
+                int peor = i;
+                int izq = 2 * i + 1;
+                int der = izq + 1;
+                if (izq < n && antes(monticulo[peor], monticulo[izq])) {
+                    peor = izq;
+                }
+                if (der < n && antes(monticulo[peor], monticulo[der])) {
+                    peor = der;
+                }
+                if (peor == i) {
+                    return;
+                }
+                intercambiar(monticulo, i, peor);
+                i = peor;
+            }
+        }
+
+        private void redimensionar() {
+            int[] viejasClaves = claves;
+            int[] viejosConteos = conteos;
+            claves = nuevaTabla(viejasClaves.length * 2);
+            conteos = new int[viejasClaves.length * 2];
+            int mascara = claves.length - 1;
+            for (int i = 0; i < viejasClaves.length; i++) {
+                if (viejasClaves[i] != VACIO) {
+                    int pos = mezclar(viejasClaves[i]) & mascara;
+                    while (claves[pos] != VACIO) {
+                        pos = (pos + 1) & mascara;
+                    }
+                    claves[pos] = viejasClaves[i];
+                    conteos[pos] = viejosConteos[i];
+                }
+            }
+        }
+
+        private static int[] nuevaTabla(int capacidad) {
+            int[] tabla = new int[capacidad];
+            Arrays.fill(tabla, VACIO);
+            return tabla;
+        }
+
+        private static int mezclar(int valor) {
+            int h = valor * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static void intercambiar(int[] arreglo, int i, int j) {
+            int tmp = arreglo[i];
+            arreglo[i] = arreglo[j];
+            arreglo[j] = tmp;
+        }
+    }
+}
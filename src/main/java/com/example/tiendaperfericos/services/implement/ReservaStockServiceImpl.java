@@ -0,0 +1,266 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.services.ReservaStockService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservas temporales de stock para los carritos. Cada usuario retiene como mucho una cantidad
+ * por producto, que caduca si no se renueva; el disponible para los demás es el stock menos las
+ * reservas vivas de otros usuarios. Todo está en memoria: las operaciones sobre un producto se
+ * serializan con un cerrojo de su franja, así que productos distintos no compiten entre sí.
+ */
+@Service
+public class ReservaStockServiceImpl implements ReservaStockService {
+
+    private static final int FRANJAS = 64;
+
+    private final long ttlMs;
+    private final ReentrantLock[] cerrojos = new ReentrantLock[FRANJAS];
+
+    // Los mapas internos solo se tocan con el cerrojo de la franja del producto
+    private final Map<Long, Map<Long, Reserva>> porProducto = new ConcurrentHashMap<>();
+    // Índice para renovar o confirmar las reservas de un usuario; puede quedar algún id ya liberado
+    private final Map<Long, Set<Long>> porUsuario = new ConcurrentHashMap<>();
+
+    private record Reserva(int cantidad, long caduca) {
+    }
+
+    public ReservaStockServiceImpl(@Value("${tienda.reservas.ttl-min:15}") long ttlMinutos) {
+        this.ttlMs = ttlMinutos * 60_000;
+        for (int i = 0; i < FRANJAS; i++) {
+            cerrojos[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Deja reservada exactamente {@code cantidad} para el usuario (sustituye a su reserva
+     * anterior) o falla sin tocar nada si el disponible no alcanza.
+     */
+    @Override
+    public void reservar(Long productoId, Long usuarioId, int cantidad, int stock) {
+        ReentrantLock cerrojo = cerrojo(productoId);
+        cerrojo.lock();
+        try {
+            int disponible = stock - reservadoPorOtros(productoId, usuarioId, System.currentTimeMillis());
+            if (disponible < cantidad) {
+                throw new RuntimeException("Stock insuficiente. Disponible: " + Math.max(disponible, 0));
+            }
+            fijar(productoId, usuarioId, cantidad);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Como {@link #reservar} pero reserva lo que haya si no alcanza; devuelve lo reservado.
+     */
+    @Override
+    public int reservarHasta(Long productoId, Long usuarioId, int cantidad, int stock) {
+        ReentrantLock cerrojo = cerrojo(productoId);
+        cerrojo.lock();
+        try {
+            int disponible = stock - reservadoPorOtros(productoId, usuarioId, System.currentTimeMillis());
+            int concedida = Math.max(0, Math.min(cantidad, disponible));
+            fijar(productoId, usuarioId, concedida);
+            return concedida;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public void liberar(Long productoId, Long usuarioId) {
+        ReentrantLock cerrojo = cerrojo(productoId);
+        cerrojo.lock();
+        try {
+            fijar(productoId, usuarioId, 0);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Lo que el usuario tiene reservado ahora del producto; 0 si no tiene nada o ya caducó.
+     */
+    @Override
+    public int reservada(Long productoId, Long usuarioId) {
+        ReentrantLock cerrojo = cerrojo(productoId);
+        cerrojo.lock();
+        try {
+            Map<Long, Reserva> reservas = porProducto.get(productoId);
+            Reserva reserva = reservas != null ? reservas.get(usuarioId) : null;
+            return reserva != null && reserva.caduca() > System.currentTimeMillis() ? reserva.cantidad() : 0;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Deja la reserva del usuario como estaba antes de un cambio que no llegó a aplicarse, sin
+     * comprobar el disponible: ese stock ya era suyo. Con 0 la libera.
+     */
+    @Override
+    public void restaurar(Long productoId, Long usuarioId, int cantidad) {
+        ReentrantLock cerrojo = cerrojo(productoId);
+        cerrojo.lock();
+        try {
+            fijar(productoId, usuarioId, cantidad);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Alarga las reservas del usuario; se llama cuando vuelve a mirar su carrito.
+     */
+    @Override
+    public void renovar(Long usuarioId) {
+        Set<Long> productos = porUsuario.get(usuarioId);
+        if (productos == null) {
+            return;
+        }
+        long caduca = System.currentTimeMillis() + ttlMs;
+        for (Long productoId : List.copyOf(productos)) {
+            ReentrantLock cerrojo = cerrojo(productoId);
+            cerrojo.lock();
+            try {
+                Map<Long, Reserva> reservas = porProducto.get(productoId);
+                Reserva reserva = reservas != null ? reservas.get(usuarioId) : null;
+                if (reserva != null) {
+                    reservas.put(usuarioId, new Reserva(reserva.cantidad(), caduca));
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+
+    /**
+     * El pedido ya descontó el stock en la base de datos: las reservas del usuario dejan de
+     * hacer falta.
+     */
+    @Override
+    public void confirmar(Long usuarioId) {
+        Set<Long> productos = porUsuario.remove(usuarioId);
+        if (productos == null) {
+            return;
+        }
+        for (Long productoId : productos) {
+            ReentrantLock cerrojo = cerrojo(productoId);
+            cerrojo.lock();
+            try {
+                Map<Long, Reserva> reservas = porProducto.get(productoId);
+                if (reservas != null) {
+                    reservas.remove(usuarioId);
+                    if (reservas.isEmpty()) {
+                        porProducto.remove(productoId);
+                    }
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stock que el usuario puede usar: el total menos lo reservado por los demás. Con
+     * {@code usuarioId} null (invitados) cuentan todas las reservas.
+     */
+    @Override
+    public int disponible(Long productoId, Long usuarioId, int stock) {
+        if (!porProducto.containsKey(productoId)) {
+            return stock;
+        }
+        ReentrantLock cerrojo = cerrojo(productoId);
+        cerrojo.lock();
+        try {
+            return Math.max(0, stock - reservadoPorOtros(productoId, usuarioId, System.currentTimeMillis()));
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tienda.reservas.purga-ms:60000}",
+            initialDelayString = "${tienda.reservas.purga-ms:60000}")
+    public void purgarCaducadas() {
+        long ahora = System.currentTimeMillis();
+        for (Long productoId : List.copyOf(porProducto.keySet())) {
+            ReentrantLock cerrojo = cerrojo(productoId);
+            cerrojo.lock();
+            try {
+                reservadoPorOtros(productoId, null, ahora);
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+        for (Long usuarioId : List.copyOf(porUsuario.keySet())) {
+            porUsuario.computeIfPresent(usuarioId, (id, productos) -> productos.isEmpty() ? null : productos);
+        }
+    }
+
+    // Con el cerrojo tomado. De paso quita las reservas caducadas del producto.
+    private int reservadoPorOtros(Long productoId, Long usuarioId, long ahora) {
+        Map<Long, Reserva> reservas = porProducto.get(productoId);
+        if (reservas == null) {
+            return 0;
+        }
+        int total = 0;
+        Iterator<Map.Entry<Long, Reserva>> iterador = reservas.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<Long, Reserva> entrada = iterador.next();
+            if (entrada.getValue().caduca() <= ahora) {
+                iterador.remove();
+                Set<Long> productos = porUsuario.get(entrada.getKey());
+                if (productos != null) {
+                    productos.remove(productoId);
+                }
+            } else if (!entrada.getKey().equals(usuarioId)) {
+                total += entrada.getValue().cantidad();
+            }
+        }
+        if (reservas.isEmpty()) {
+            porProducto.remove(productoId);
+        }
+        return total;
+    }
+
+    // Con el cerrojo tomado
+    private void fijar(Long productoId, Long usuarioId, int cantidad) {
+        if (cantidad <= 0) {
+            Map<Long, Reserva> reservas = porProducto.get(productoId);
+            if (reservas != null) {
+                reservas.remove(usuarioId);
+                if (reservas.isEmpty()) {
+                    porProducto.remove(productoId);
+                }
+            }
+            Set<Long> productos = porUsuario.get(usuarioId);
+            if (productos != null) {
+                productos.remove(productoId);
+            }
+            return;
+        }
+        porProducto.computeIfAbsent(productoId, id -> new HashMap<>())
+                .put(usuarioId, new Reserva(cantidad, System.currentTimeMillis() + ttlMs));
+        // Dentro de compute para no añadir a un conjunto que la purga acaba de soltar
+        porUsuario.compute(usuarioId, (id, productos) -> {
+            Set<Long> resultado = productos != null ? productos : ConcurrentHashMap.newKeySet();
+            resultado.add(productoId);
+            return resultado;
+        });
+    }
+
+    private ReentrantLock cerrojo(Long productoId) {
+        return cerrojos[Long.hashCode(productoId) & (FRANJAS - 1)];
+    }
+}
@@ -5,6 +5,7 @@ package com.example.tiendaperfericos.services.implement;
 
 import com.example.tiendaperfericos.Repostory.RolRepository;
 import com.example.tiendaperfericos.Repostory.UsuarioRepository;
+import com.example.tiendaperfericos.dto.UsuarioResumenDTO;
 import com.example.tiendaperfericos.entity.Rol;
 import com.example.tiendaperfericos.entity.Usuarios;
 import com.example.tiendaperfericos.services.UsuarioService;
@@ -89,6 +90,12 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioRepository.findByActivoTrue();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<UsuarioResumenDTO> findResumenesActivos() {
+        return usuarioRepository.findResumenesActivos();
+    }
+
 
 
 
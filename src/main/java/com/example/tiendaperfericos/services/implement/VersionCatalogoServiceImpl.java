@@ -0,0 +1,104 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.services.VersionCatalogoService;
+import com.example.tiendaperfericos.util.Transacciones;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sellos de versión del catálogo (milisegundos de la última escritura): global, por categoría
+ * y por producto.
+ * Al arrancar ningún sello queda por debajo de la hora de arranque: los cambios de categorías y
+ * destacados no dejan fecha en la base de datos, así que sembrar con la mayor
+ * {@code fechaActualizacion} de los productos podría repetir un sello ya emitido para otro
+ * contenido. Tras un reinicio cada página se revalida una vez; después los sellos avanzan con
+ * cada escritura confirmada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VersionCatalogoServiceImpl implements VersionCatalogoService {
+
+    private final ProductoRepository productoRepository;
+
+    private final AtomicLong global = new AtomicLong(System.currentTimeMillis());
+    // Último cambio que afecta a todas las páginas; ningún sello de categoría o producto queda por debajo
+    private final AtomicLong general = new AtomicLong();
+    private final Map<Long, AtomicLong> porCategoria = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> porProducto = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        long maximo = 0;
+        for (Object[] fila : productoRepository.findSellosActualizacion()) {
+            long sello = aMilis((LocalDateTime) fila[2]);
+            adelantar(porProducto, (Long) fila[0], sello);
+            adelantar(porCategoria, (Long) fila[1], sello);
+            maximo = Math.max(maximo, sello);
+        }
+        // Solo hacia delante: la fecha de los productos no recoge todo lo que cambia las páginas
+        general.accumulateAndGet(global.accumulateAndGet(maximo, Math::max), Math::max);
+        log.info("Versión del catálogo inicializada en {}", global.get());
+    }
+
+    @Override
+    public long ultimaModificacion() {
+        return global.get();
+    }
+
+    @Override
+    public long ultimaModificacionCategoria(Long categoriaId) {
+        AtomicLong sello = porCategoria.get(categoriaId);
+        return sello != null ? Math.max(sello.get(), general.get()) : global.get();
+    }
+
+    @Override
+    public long ultimaModificacionProducto(Long productoId) {
+        AtomicLong sello = porProducto.get(productoId);
+        return sello != null ? Math.max(sello.get(), general.get()) : global.get();
+    }
+
+    @Override
+    public void registrarCambio(Long categoriaId, Long productoId) {
+        Transacciones.trasConfirmar(() -> avanzar(categoriaId, productoId));
+    }
+
+    /**
+     * Para cambios que no vienen de una escritura del catálogo pero alteran cómo se ven todas sus
+     * páginas, como las variantes de imagen recién generadas: avanza todos los sellos a la vez.
+     */
+    @Override
+    public void registrarCambioGeneral() {
+        general.accumulateAndGet(avanzar(null, null), Math::max);
+    }
+
+    private long avanzar(Long categoriaId, Long productoId) {
+        // Estrictamente creciente aunque haya dos escrituras en el mismo milisegundo
+        long sello = global.accumulateAndGet(System.currentTimeMillis(), (previo, ahora) -> Math.max(previo + 1, ahora));
+        if (categoriaId != null) {
+            adelantar(porCategoria, categoriaId, sello);
+        }
+        if (productoId != null) {
+            adelantar(porProducto, productoId, sello);
+        }
+        return sello;
+    }
+
+    private static void adelantar(Map<Long, AtomicLong> sellos, Long id, long sello) {
+        sellos.computeIfAbsent(id, clave -> new AtomicLong()).accumulateAndGet(sello, Math::max);
+    }
+
+    private static long aMilis(LocalDateTime fecha) {
+        return fecha != null ? fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+}
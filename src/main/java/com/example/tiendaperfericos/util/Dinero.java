@@ -0,0 +1,66 @@
+package com.example.tiendaperfericos.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Importe en centavos. Las sumas y productos de carrito y pedido se hacen con {@code long} en
+ * lugar de ir creando un {@link BigDecimal} por paso; solo se vuelve a {@code BigDecimal} para
+ * guardar o mostrar el resultado.
+ * <p>
+ * Reglas de redondeo: un importe con más de dos decimales se redondea a centavos con
+ * {@link RoundingMode#HALF_UP}, igual que MySQL al guardarlo en {@code DECIMAL(10, 2)}; las
+ * operaciones entre importes son exactas y fallan con {@link ArithmeticException} si desbordan.
+ */
+public record Dinero(long centavos) implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    public static Dinero de(BigDecimal importe) {
+        return new Dinero(centavos(importe));
+    }
+
+    /**
+     * Centavos de un importe sin crear el {@code Dinero}; null cuenta como cero.
+     */
+    public static long centavos(BigDecimal importe) {
+        if (importe == null) {
+            return 0;
+        }
+        // Caso habitual: ya viene con dos decimales desde la columna DECIMAL(10, 2). movePointRight
+        // se queda en la representación compacta de BigDecimal y no crea un BigInteger
+        if (importe.scale() == 2) {
+            return importe.movePointRight(2).longValueExact();
+        }
+        return importe.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Subtotal de una línea en centavos: precio unitario por cantidad.
+     */
+    public static long subtotal(BigDecimal precioUnitario, int cantidad) {
+        return Math.multiplyExact(centavos(precioUnitario), cantidad);
+    }
+
+    public static BigDecimal aDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public Dinero mas(Dinero otro) {
+        return new Dinero(Math.addExact(centavos, otro.centavos));
+    }
+
+    public BigDecimal aDecimal() {
+        return aDecimal(centavos);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        return aDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.tiendaperfericos.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Guarda un {@link Dinero} en una columna {@code DECIMAL(10, 2)}. No se aplica solo: las
+ * columnas de importes que ya existen siguen siendo {@link BigDecimal} porque las consultas
+ * JPQL, las especificaciones de precio y las plantillas trabajan con ese tipo; un atributo
+ * nuevo de tipo {@code Dinero} lo usa con {@code @Convert(converter = DineroConverter.class)}.
+ */
+@Converter
+public class DineroConverter implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero dinero) {
+        return dinero != null ? dinero.aDecimal() : null;
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal importe) {
+        return importe != null ? Dinero.de(importe) : null;
+    }
+}
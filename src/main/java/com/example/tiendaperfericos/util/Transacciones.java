@@ -0,0 +1,31 @@
+package com.example.tiendaperfericos.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ayudas para tocar estado en memoria al ritmo de las transacciones.
+ */
+public final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción en curso se confirme, o ya mismo si no hay ninguna.
+     * Si la transacción se deshace no se ejecuta: la memoria nunca refleja un cambio que no llegó
+     * a la base de datos.
+     */
+    public static void trasConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+-- Esquema tal como lo generaba Hibernate con ddl-auto=update.
+-- En bases de datos ya existentes no se ejecuta: Flyway las marca en esta versión (baseline).
+
+CREATE TABLE roles (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    nombre      VARCHAR(255) NOT NULL,
+    descripcion VARCHAR(500),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_nombre UNIQUE (nombre)
+) ENGINE = InnoDB;
+
+CREATE TABLE usuarios (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    email          VARCHAR(255) NOT NULL,
+    password       VARCHAR(255) NOT NULL,
+    nombre         VARCHAR(255) NOT NULL,
+    apellido       VARCHAR(255) NOT NULL,
+    direccion      VARCHAR(255),
+    telefono       VARCHAR(255),
+    rol_id         BIGINT       NOT NULL,
+    fecha_registro DATETIME(6),
+    activo         BIT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_email UNIQUE (email),
+    CONSTRAINT fk_usuarios_rol FOREIGN KEY (rol_id) REFERENCES roles (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE categorias (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    nombre      VARCHAR(255) NOT NULL,
+    descripcion VARCHAR(1000),
+    activa      BIT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categorias_nombre UNIQUE (nombre)
+) ENGINE = InnoDB;
+
+CREATE TABLE productos (
+    id                  BIGINT         NOT NULL AUTO_INCREMENT,
+    nombre              VARCHAR(255)   NOT NULL,
+    descripcion         VARCHAR(2000),
+    precio              DECIMAL(10, 2) NOT NULL,
+    stock               INT            NOT NULL,
+    categoria_id        BIGINT         NOT NULL,
+    imagen_url          VARCHAR(255),
+    fecha_creacion      DATETIME(6),
+    fecha_actualizacion DATETIME(6),
+    activo              BIT            NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_productos_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE carritos (
+    id                  BIGINT NOT NULL AUTO_INCREMENT,
+    usuario_id          BIGINT NOT NULL,
+    fecha_creacion      DATETIME(6),
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_carritos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE items_carrito (
+    id              BIGINT         NOT NULL AUTO_INCREMENT,
+    carrito_id      BIGINT         NOT NULL,
+    producto_id     BIGINT         NOT NULL,
+    cantidad        INT            NOT NULL,
+    precio_unitario DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_items_carrito_carrito FOREIGN KEY (carrito_id) REFERENCES carritos (id),
+    CONSTRAINT fk_items_carrito_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE pedidos (
+    id                BIGINT         NOT NULL AUTO_INCREMENT,
+    usuario_id        BIGINT         NOT NULL,
+    fecha_pedido      DATETIME(6)    NOT NULL,
+    estado            ENUM ('PENDIENTE','CONFIRMADO','EN_PREPARACION','ENVIADO','ENTREGADO','CANCELADO') NOT NULL,
+    total             DECIMAL(10, 2) NOT NULL,
+    direccion_entrega VARCHAR(255),
+    telefono_contacto VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_pedidos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE detalles_pedido (
+    id              BIGINT         NOT NULL AUTO_INCREMENT,
+    pedido_id       BIGINT         NOT NULL,
+    producto_id     BIGINT         NOT NULL,
+    cantidad        INT            NOT NULL,
+    precio_unitario DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_detalles_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id),
+    CONSTRAINT fk_detalles_pedido_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE productos_destacados (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    producto_id BIGINT NOT NULL,
+    posicion    INT    NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_productos_destacados_producto UNIQUE (producto_id),
+    CONSTRAINT fk_productos_destacados_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) ENGINE = InnoDB;
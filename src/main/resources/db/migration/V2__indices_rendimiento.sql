@@ -0,0 +1,28 @@
+-- Índices para los filtros más frecuentes de la tienda, el historial de pedidos y el carrito.
+
+CREATE INDEX idx_productos_activo_categoria_precio ON productos (activo, categoria_id, precio);
+
+CREATE INDEX idx_pedidos_usuario_fecha ON pedidos (usuario_id, fecha_pedido);
+
+CREATE INDEX idx_pedidos_estado_fecha ON pedidos (estado, fecha_pedido);
+
+CREATE INDEX idx_carritos_usuario ON carritos (usuario_id);
+
+CREATE INDEX idx_usuarios_rol ON usuarios (rol_id);
+
+-- Un producto aparece una sola vez por carrito: antes de exigirlo se suman las líneas repetidas
+UPDATE items_carrito i
+    JOIN (SELECT MIN(id) AS id, SUM(cantidad) AS cantidad
+          FROM items_carrito
+          GROUP BY carrito_id, producto_id
+          HAVING COUNT(*) > 1) repetidos ON repetidos.id = i.id
+SET i.cantidad = repetidos.cantidad;
+
+DELETE i
+FROM items_carrito i
+         JOIN items_carrito primero
+              ON primero.carrito_id = i.carrito_id
+                  AND primero.producto_id = i.producto_id
+                  AND primero.id < i.id;
+
+CREATE UNIQUE INDEX uk_items_carrito_carrito_producto ON items_carrito (carrito_id, producto_id);
@@ -0,0 +1,10 @@
+-- Contadores acumulados de vistas y de veces que se añade al carrito cada producto.
+
+CREATE TABLE producto_metricas (
+    producto_id         BIGINT NOT NULL,
+    vistas              BIGINT NOT NULL DEFAULT 0,
+    agregados_carrito   BIGINT NOT NULL DEFAULT 0,
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (producto_id),
+    CONSTRAINT fk_producto_metricas_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,240 @@
+package com.example.tiendaperfericos;
+
+import com.example.tiendaperfericos.Repostory.CarritoRepository;
+import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
+import com.example.tiendaperfericos.Repostory.ItemCarritoRepository;
+import com.example.tiendaperfericos.Repostory.PedidoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoSpecifications;
+import com.example.tiendaperfericos.Repostory.RolRepository;
+import com.example.tiendaperfericos.Repostory.UsuarioRepository;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Llama a los métodos de los repositorios que filtran por columnas, captura el SQL que genera
+ * Hibernate de verdad y comprueba con EXPLAIN que MySQL elige el índice esperado. Donde una clave
+ * foránea y un índice compuesto sirven igual se aceptan los dos.
+ * <p>
+ * Los datos de prueba se insertan dentro de la transacción del test y se deshacen al terminar;
+ * EXPLAIN corre en la misma conexión, así que los ve.
+ */
+@SpringBootTest
+@Transactional
+class IndicesConsultasTest {
+
+    private static final String IDX_PRODUCTOS = "idx_productos_activo_categoria_precio";
+
+    @TestConfiguration
+    static class Configuracion {
+
+        @Bean
+        CapturadorSql capturadorSql() {
+            return new CapturadorSql();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer inspectorSql(CapturadorSql capturador) {
+            return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, capturador);
+        }
+    }
+
+    /**
+     * Guarda las sentencias que Hibernate prepara mientras está activo, sin modificarlas.
+     */
+    static class CapturadorSql implements StatementInspector {
+
+        private final List<String> sentencias = new ArrayList<>();
+        private volatile boolean activo;
+
+        @Override
+        public synchronized String inspect(String sql) {
+            if (activo) {
+                sentencias.add(sql);
+            }
+            return sql;
+        }
+
+        synchronized List<String> capturar(Runnable llamada) {
+            sentencias.clear();
+            activo = true;
+            try {
+                llamada.run();
+            } finally {
+                activo = false;
+            }
+            return List.copyOf(sentencias);
+        }
+    }
+
+    private record Caso(String nombre, Runnable llamada, Object[] parametros, Set<String> indices) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CapturadorSql capturador;
+    @Autowired
+    private ProductoRepository productoRepository;
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+    @Autowired
+    private CarritoRepository carritoRepository;
+    @Autowired
+    private ItemCarritoRepository itemCarritoRepository;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Test
+    void cadaConsultaUsaSuIndice() {
+        String sufijo = UUID.randomUUID().toString().substring(0, 8);
+        String email = "indices-" + sufijo + "@test.local";
+        long rolId = insertar("INSERT INTO roles (nombre) VALUES (?)", "INDICES_" + sufijo);
+        long usuarioId = insertar("INSERT INTO usuarios (email, password, nombre, apellido, rol_id, activo) "
+                + "VALUES (?, 'x', 'Prueba', 'Indices', ?, 1)", email, rolId);
+
+        // Varias categorías, productos y pedidos para que el optimizador tenga algo que descartar
+        long categoriaId = 0;
+        long productoId = 0;
+        for (int c = 0; c < 4; c++) {
+            categoriaId = insertar("INSERT INTO categorias (nombre, activa) VALUES (?, 1)",
+                    "Indices " + sufijo + " " + c);
+            for (int p = 0; p < 25; p++) {
+                productoId = insertar("INSERT INTO productos (nombre, precio, stock, categoria_id, activo) "
+                        + "VALUES (?, ?, 10, ?, ?)", "Producto " + p, BigDecimal.valueOf(5L + p * 8L), categoriaId, p % 5 != 0);
+            }
+        }
+        long pedidoId = 0;
+        EstadoPedido[] estados = EstadoPedido.values();
+        for (int i = 0; i < 60; i++) {
+            pedidoId = insertar("INSERT INTO pedidos (usuario_id, fecha_pedido, estado, total) VALUES (?, ?, ?, 10)",
+                    usuarioId, Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(i * 7L)),
+                    estados[i % estados.length].name());
+        }
+        insertar("INSERT INTO detalles_pedido (pedido_id, producto_id, cantidad, precio_unitario) VALUES (?, ?, 1, 10)",
+                pedidoId, productoId);
+        long carritoId = insertar("INSERT INTO carritos (usuario_id) VALUES (?)", usuarioId);
+        insertar("INSERT INTO items_carrito (carrito_id, producto_id, cantidad, precio_unitario) VALUES (?, ?, 1, 10)",
+                carritoId, productoId);
+
+        LocalDateTime desde = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime hasta = LocalDateTime.of(2025, 2, 1, 0, 0);
+        long categoria = categoriaId;
+        long producto = productoId;
+        long pedido = pedidoId;
+        List<Caso> casos = List.of(
+                new Caso("ProductoRepository.findByCategoriaIdAndActivoTrue",
+                        () -> productoRepository.findByCategoriaIdAndActivoTrue(categoria),
+                        new Object[]{categoria}, Set.of(IDX_PRODUCTOS, "fk_productos_categoria")),
+                new Caso("ProductoRepository.findByIdAndActivoTrue",
+                        () -> productoRepository.findByIdAndActivoTrue(producto),
+                        new Object[]{producto}, Set.of("PRIMARY")),
+                new Caso("ProductoRepositoryImpl.buscarResumenes (tienda)",
+                        () -> productoRepository.buscarResumenes(ProductoSpecifications.activosEnCategoriaActiva()
+                                        .and(ProductoSpecifications.deCategoria(categoria))
+                                        .and(ProductoSpecifications.precioDesde(BigDecimal.TEN))
+                                        .and(ProductoSpecifications.precioHasta(BigDecimal.valueOf(100))),
+                                Sort.by("precio", "id"), 24),
+                        new Object[]{categoria, BigDecimal.TEN, BigDecimal.valueOf(100), 24},
+                        Set.of(IDX_PRODUCTOS, "fk_productos_categoria")),
+                new Caso("PedidoRepository.findResumenesByUsuarioId",
+                        () -> pedidoRepository.findResumenesByUsuarioId(usuarioId),
+                        new Object[]{usuarioId}, Set.of("idx_pedidos_usuario_fecha", "fk_pedidos_usuario")),
+                new Caso("PedidoRepository.countByEstado",
+                        () -> pedidoRepository.countByEstado(EstadoPedido.ENTREGADO),
+                        new Object[]{EstadoPedido.ENTREGADO.name()}, Set.of("idx_pedidos_estado_fecha")),
+                new Caso("PedidoRepository.getIngresosTotales",
+                        () -> pedidoRepository.getIngresosTotales(desde, hasta),
+                        new Object[]{Timestamp.valueOf(desde), Timestamp.valueOf(hasta)},
+                        Set.of("idx_pedidos_estado_fecha")),
+                new Caso("DetallePedidoRepository.findByPedidoId",
+                        () -> detallePedidoRepository.findByPedidoId(pedido),
+                        new Object[]{pedido}, Set.of("fk_detalles_pedido_pedido")),
+                new Caso("CarritoRepository.findByUsuarioId",
+                        () -> carritoRepository.findByUsuarioId(usuarioId),
+                        new Object[]{usuarioId}, Set.of("idx_carritos_usuario", "fk_carritos_usuario")),
+                new Caso("ItemCarritoRepository.findLineasByCarritoId",
+                        () -> itemCarritoRepository.findLineasByCarritoId(carritoId),
+                        new Object[]{carritoId}, Set.of("uk_items_carrito_carrito_producto", "fk_items_carrito_carrito")),
+                new Caso("UsuarioRepository.findByEmail",
+                        () -> usuarioRepository.findByEmail(email),
+                        new Object[]{email}, Set.of("uk_usuarios_email")),
+                new Caso("UsuarioRepository.findByRol",
+                        () -> usuarioRepository.findByRol(rolRepository.getReferenceById(rolId)),
+                        new Object[]{rolId}, Set.of("idx_usuarios_rol", "fk_usuarios_rol")));
+
+        List<String> fallos = new ArrayList<>();
+        for (Caso caso : casos) {
+            comprobar(caso, fallos);
+        }
+        assertTrue(fallos.isEmpty(), () -> String.join("\n", fallos));
+    }
+
+    private void comprobar(Caso caso, List<String> fallos) {
+        List<String> sentencias = capturador.capturar(caso.llamada());
+        if (sentencias.isEmpty()) {
+            fallos.add(caso.nombre() + ": no se ejecutó ninguna sentencia");
+            return;
+        }
+        // La primera es la consulta del método; las siguientes, cargas EAGER de relaciones
+        String sql = sentencias.get(0);
+        long marcadores = sql.chars().filter(c -> c == '?').count();
+        if (marcadores != caso.parametros().length) {
+            fallos.add(caso.nombre() + ": " + marcadores + " parámetros en el SQL, se esperaban "
+                    + caso.parametros().length + "\n  " + sql);
+            return;
+        }
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, caso.parametros());
+        boolean usaIndice = plan.stream().anyMatch(fila -> caso.indices().contains(String.valueOf(fila.get("key"))));
+        if (!usaIndice) {
+            fallos.add(caso.nombre() + ": se esperaba " + caso.indices() + " y el plan es " + plan + "\n  " + sql);
+        }
+        for (Map<String, Object> fila : plan) {
+            if ("ALL".equals(fila.get("type")) && fila.get("possible_keys") == null) {
+                fallos.add(caso.nombre() + ": recorrido completo de " + fila.get("table"));
+            }
+        }
+    }
+
+    private long insertar(String sql, Object... parametros) {
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.update(conexion -> {
+            PreparedStatement sentencia = conexion.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < parametros.length; i++) {
+                sentencia.setObject(i + 1, parametros[i]);
+            }
+            return sentencia;
+        }, claves);
+        return claves.getKey().longValue();
+    }
+}
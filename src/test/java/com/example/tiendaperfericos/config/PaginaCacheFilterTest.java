@@ -0,0 +1,64 @@
+package com.example.tiendaperfericos.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * La tienda se renderiza una vez para los visitantes anónimos y las siguientes visitas salen de
+ * la caché: el render no debe abrir sesión ni fijar cookies.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaginaCacheFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaginaCacheFilter paginaCacheFilter;
+
+    @Test
+    void segundaVisitaAnonimaALaTiendaSaleDeLaCache() throws Exception {
+        // Parámetro propio para no depender de lo que otras pruebas hayan dejado en la caché
+        String ruta = "/productos/tienda?orden=nombre";
+        long aciertosAntes = aciertos();
+
+        MvcResult primera = mockMvc.perform(get(ruta))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("public")))
+                .andReturn();
+        assertNull(primera.getRequest().getSession(false), "renderizar la tienda no debe abrir sesión");
+        assertEquals(aciertosAntes, aciertos());
+
+        mockMvc.perform(get(ruta))
+                .andExpect(status().isOk())
+                .andExpect(content().string(primera.getResponse().getContentAsString()));
+        assertEquals(aciertosAntes + 1, aciertos());
+    }
+
+    @Test
+    void conSesionLaPaginaNoEsPublica() throws Exception {
+        mockMvc.perform(get("/productos/tienda").session(new MockHttpSession()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("private")));
+    }
+
+    private long aciertos() {
+        return (Long) paginaCacheFilter.estadisticas().get("aciertos");
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.CarritoRepository;
+import com.example.tiendaperfericos.Repostory.ItemCarritoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.Repostory.UsuarioRepository;
+import com.example.tiendaperfericos.dto.CarritoResumenDTO;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.services.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlmacenCarritoServiceImplTest {
+
+    private static final Long USUARIO = 7L;
+    private static final Long CARRITO = 100L;
+    private static final Long RATON = 1L;
+    private static final Long TECLADO = 2L;
+
+    private record Lote(String sql, List<Object[]> filas) {
+    }
+
+    private CarritoRepository carritoRepository;
+    private ItemCarritoRepository itemCarritoRepository;
+    private JdbcTemplate jdbcTemplate;
+    private AlmacenCarritoServiceImpl almacen;
+    private final List<Lote> lotes = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        carritoRepository = mock(CarritoRepository.class);
+        itemCarritoRepository = mock(ItemCarritoRepository.class);
+        ProductoService productoService = mock(ProductoService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        when(carritoRepository.findIdByUsuarioId(USUARIO)).thenReturn(Optional.of(CARRITO));
+        when(itemCarritoRepository.findLineasByCarritoId(CARRITO)).thenReturn(List.of());
+        when(productoService.findById(RATON)).thenReturn(Optional.of(producto(RATON, "19.99")));
+        when(productoService.findById(TECLADO)).thenReturn(Optional.of(producto(TECLADO, "45.50")));
+        doAnswer(invocacion -> {
+            lotes.add(new Lote(invocacion.getArgument(0), new ArrayList<>(invocacion.<List<Object[]>>getArgument(1))));
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        almacen = new AlmacenCarritoServiceImpl(carritoRepository, itemCarritoRepository,
+                mock(UsuarioRepository.class), mock(ProductoRepository.class), productoService,
+                new ReservaStockServiceImpl(15), jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(almacen, "inactividadMinutos", 30L);
+    }
+
+    @Test
+    void unaCargaQueSeSolapaConUnaPurgaSeDescarta() {
+        // La primera lectura ve el carrito antiguo; antes de publicarlo, la limpieza lo borra
+        AtomicBoolean borrado = new AtomicBoolean();
+        when(itemCarritoRepository.findLineasByCarritoId(CARRITO)).thenAnswer(invocacion -> {
+            if (!borrado.get()) {
+                almacen.purgarSinCargar(List.of(USUARIO), libres -> {
+                    assertTrue(libres.contains(USUARIO));
+                    borrado.set(true);
+                    return null;
+                });
+                return List.<Object[]>of(new Object[]{RATON, 3, new BigDecimal("19.99")});
+            }
+            return List.of();
+        });
+        when(carritoRepository.findIdByUsuarioId(USUARIO))
+                .thenAnswer(invocacion -> borrado.get() ? Optional.empty() : Optional.of(CARRITO));
+
+        CarritoResumenDTO resumen = almacen.resumen(USUARIO);
+
+        // Se volvió a cargar tras la purga: no queda nada de las filas borradas
+        assertEquals(0, resumen.getLineas());
+        verify(carritoRepository, times(2)).findIdByUsuarioId(USUARIO);
+    }
+
+    @Test
+    void unVolcadoFallidoDevuelveLasLineasAPendientes() {
+        almacen.agregar(USUARIO, RATON, 2);
+        doAnswer(invocacion -> {
+            throw new IllegalStateException("base de datos caída");
+        }).doAnswer(invocacion -> {
+            lotes.add(new Lote(invocacion.getArgument(0), new ArrayList<>(invocacion.<List<Object[]>>getArgument(1))));
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        almacen.volcar();
+        assertTrue(lotes.isEmpty());
+
+        almacen.volcar();
+        List<Object[]> upserts = filas("INSERT INTO items_carrito");
+        assertEquals(1, upserts.size());
+        assertArrayEquals(new Object[]{2, new BigDecimal("19.99"), RATON, CARRITO}, upserts.get(0));
+        assertEquals(1, filas("UPDATE carritos").size());
+
+        // Ya no queda nada pendiente
+        lotes.clear();
+        almacen.volcar();
+        assertTrue(lotes.isEmpty());
+    }
+
+    @Test
+    void unCambioTrasSoltarPorInactividadVuelveACargar() throws InterruptedException {
+        ReflectionTestUtils.setField(almacen, "inactividadMinutos", 0L);
+        almacen.resumen(USUARIO);
+        Thread.sleep(5);
+        almacen.volcar();
+
+        // Entretanto el carrito cambió en la base de datos (p. ej. un pedido desde otra pestaña)
+        when(itemCarritoRepository.findLineasByCarritoId(CARRITO))
+                .thenReturn(List.<Object[]>of(new Object[]{TECLADO, 1, new BigDecimal("45.50")}));
+        CarritoResumenDTO resumen = almacen.agregar(USUARIO, RATON, 1);
+
+        assertEquals(2, resumen.getLineas());
+        assertEquals(new BigDecimal("65.49"), resumen.getTotal());
+        verify(carritoRepository, times(2)).findIdByUsuarioId(USUARIO);
+    }
+
+    @Test
+    void unAgregadoDuranteUnVolcadoNoSePierde() {
+        almacen.agregar(USUARIO, RATON, 1);
+        AtomicBoolean primera = new AtomicBoolean(true);
+        doAnswer(invocacion -> {
+            if (primera.getAndSet(false)) {
+                // Otro hilo añade mientras el volcado escribe, ya fuera del monitor del carrito
+                CompletableFuture.runAsync(() -> almacen.agregar(USUARIO, TECLADO, 2)).join();
+            }
+            lotes.add(new Lote(invocacion.getArgument(0), new ArrayList<>(invocacion.<List<Object[]>>getArgument(1))));
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        almacen.volcar();
+        assertEquals(List.of(RATON), productos(filas("INSERT INTO items_carrito")));
+
+        lotes.clear();
+        almacen.volcar();
+        assertEquals(List.of(TECLADO), productos(filas("INSERT INTO items_carrito")));
+        assertEquals(2, almacen.resumen(USUARIO).getLineas());
+    }
+
+    private List<Object[]> filas(String prefijo) {
+        List<Object[]> filas = new ArrayList<>();
+        for (Lote lote : lotes) {
+            if (lote.sql().strip().startsWith(prefijo)) {
+                filas.addAll(lote.filas());
+            }
+        }
+        return filas;
+    }
+
+    private static List<Object> productos(List<Object[]> upserts) {
+        return upserts.stream().map(fila -> fila[2]).toList();
+    }
+
+    private static Producto producto(Long id, String precio) {
+        return Producto.builder()
+                .id(id)
+                .nombre("Producto " + id)
+                .precio(new BigDecimal(precio))
+                .stock(10)
+                .activo(true)
+                .build();
+    }
+}
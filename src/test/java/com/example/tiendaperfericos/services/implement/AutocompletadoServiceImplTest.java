@@ -0,0 +1,128 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.DetallePedidoRepository;
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.dto.SugerenciaDTO;
+import com.example.tiendaperfericos.entity.Categoria;
+import com.example.tiendaperfericos.entity.Producto;
+import com.example.tiendaperfericos.entity.emun.EstadoPedido;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AutocompletadoServiceImplTest {
+
+    private static final Categoria RATONES = categoria(10L, "Ratones");
+    private static final Categoria MONITORES = categoria(20L, "Monitores");
+
+    private AutocompletadoServiceImpl autocompletado;
+
+    @BeforeEach
+    void preparar() {
+        ProductoRepository productos = mock(ProductoRepository.class);
+        DetallePedidoRepository detalles = mock(DetallePedidoRepository.class);
+        when(productos.findProductosActivos()).thenReturn(List.of(
+                producto(1L, "Mouse Logitech G502", RATONES),
+                producto(2L, "Mouse Razer Viper", RATONES),
+                producto(3L, "Monitor LG 27", MONITORES)));
+        // Popularidad: Razer 50, Logitech 5, Monitor 0; Ratones 57 y Monitores 1 (ventas + 1 por producto)
+        when(detalles.findVentasPorProducto(EstadoPedido.CANCELADO)).thenReturn(List.of(
+                new Object[]{2L, 50L},
+                new Object[]{1L, 5L}));
+        autocompletado = new AutocompletadoServiceImpl(productos, detalles);
+        autocompletado.reconstruir();
+    }
+
+    @Test
+    void ordenaPorPopularidadDentroDelPrefijo() {
+        assertEquals(List.of("Mouse Razer Viper", "Mouse Logitech G502", "Monitores", "Monitor LG 27"),
+                textos("mo", 10));
+        assertEquals(List.of("Mouse Razer Viper", "Mouse Logitech G502"), textos("mo", 2));
+    }
+
+    @Test
+    void sugiereDesdeCadaInicioDePalabra() {
+        assertEquals(List.of("Mouse Razer Viper"), textos("viper", 10));
+        assertEquals(List.of("Mouse Logitech G502"), textos("g50", 10));
+        assertEquals(List.of("Monitor LG 27"), textos("lg 2", 10));
+        assertEquals(List.of("Mouse Razer Viper"), textos("MOUSE  raz", 10));
+        assertEquals(List.of(), textos("ouse", 10));
+        assertEquals(List.of(), textos("mouse x", 10));
+        assertEquals(List.of(), textos(" ", 10));
+        assertEquals(List.of(), textos("mo", 0));
+    }
+
+    @Test
+    void categoriasYProductosLlevanASuPagina() {
+        SugerenciaDTO categoria = autocompletado.sugerir("rat", 10).get(0);
+        assertEquals("categoria", categoria.getTipo());
+        assertEquals("Ratones", categoria.getTexto());
+        assertEquals("/productos/tienda?categoriaId=10", categoria.getUrl());
+
+        SugerenciaDTO producto = autocompletado.sugerir("viper", 10).get(0);
+        assertEquals("producto", producto.getTipo());
+        assertEquals(2L, producto.getId());
+        assertEquals("/productos/detalle/2", producto.getUrl());
+    }
+
+    @Test
+    void insertarParteLaAristaComun() {
+        autocompletado.indexar(producto(4L, "Mousepad XL", RATONES));
+
+        assertEquals(List.of("Mousepad XL"), textos("mousep", 10));
+        assertEquals(List.of("Mousepad XL"), textos("xl", 10));
+        assertEquals(List.of("Mouse Razer Viper", "Mouse Logitech G502", "Mousepad XL"), textos("mouse", 10));
+        // Una categoría nueva entra con su producto
+        autocompletado.indexar(producto(5L, "Webcam HD", categoria(30L, "Camaras")));
+        assertEquals(List.of("Camaras"), textos("cam", 10));
+    }
+
+    @Test
+    void borrarPodaYVuelveACompactar() {
+        autocompletado.indexar(producto(4L, "Mousepad XL", RATONES));
+        autocompletado.eliminar(4L);
+
+        assertEquals(List.of(), textos("mousep", 10));
+        assertEquals(List.of("Mouse Razer Viper", "Mouse Logitech G502"), textos("mouse", 10));
+
+        autocompletado.eliminar(1L);
+        assertEquals(List.of(), textos("logitech", 10));
+        assertEquals(List.of(), textos("g502", 10));
+        assertEquals(List.of("Mouse Razer Viper", "Monitores", "Monitor LG 27"), textos("mo", 10));
+
+        // Tras podar, volver a insertar por el mismo camino funciona
+        autocompletado.indexar(producto(1L, "Mouse Logitech G502", RATONES));
+        assertEquals(List.of("Mouse Razer Viper", "Mouse Logitech G502"), textos("mouse", 10));
+    }
+
+    @Test
+    void reindexarConservaLaPopularidadYQuitaLoInactivo() {
+        autocompletado.indexar(producto(2L, "Mouse Razer Basilisk", RATONES));
+
+        assertEquals(List.of(), textos("viper", 10));
+        assertEquals(List.of("Mouse Razer Basilisk"), textos("basilisk", 10));
+        assertEquals("Mouse Razer Basilisk", textos("m", 10).get(0));
+
+        Producto inactivo = producto(3L, "Monitor LG 27", MONITORES);
+        inactivo.setActivo(false);
+        autocompletado.indexar(inactivo);
+        assertEquals(List.of("Monitores"), textos("moni", 10));
+    }
+
+    private List<String> textos(String prefijo, int limite) {
+        return autocompletado.sugerir(prefijo, limite).stream().map(SugerenciaDTO::getTexto).toList();
+    }
+
+    private static Producto producto(Long id, String nombre, Categoria categoria) {
+        return Producto.builder().id(id).nombre(nombre).categoria(categoria).activo(true).build();
+    }
+
+    private static Categoria categoria(Long id, String nombre) {
+        return Categoria.builder().id(id).nombre(nombre).activa(true).build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.entity.Categoria;
+import com.example.tiendaperfericos.entity.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BusquedaServiceImplTest {
+
+    private static final Categoria PERIFERICOS = categoria(1L, "Perifericos");
+
+    @Test
+    void tokenizarQuitaTildesYSeparadores() {
+        assertEquals(List.of("raton", "inalambrico", "2", "4ghz"), BusquedaServiceImpl.tokenizar("Ratón  INALÁMBRICO-2,4GHz"));
+        assertEquals(List.of(), BusquedaServiceImpl.tokenizar("  "));
+        assertEquals(List.of(), BusquedaServiceImpl.tokenizar(null));
+    }
+
+    @Test
+    void elNombrePesaMasQueLaDescripcion() {
+        BusquedaServiceImpl busqueda = indice(
+                producto(1L, "Alfombrilla", "Para mouse", categoria(2L, "Accesorios")),
+                producto(2L, "Mouse Logitech G502", "Mouse gamer con sensor optico", categoria(3L, "Ratones")),
+                producto(3L, "Teclado mecanico", "Incluye mouse de regalo", categoria(4L, "Teclados")));
+
+        List<Long> ids = busqueda.buscar("mouse", 10);
+
+        assertEquals(2L, ids.get(0));
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(ids));
+    }
+
+    @Test
+    void unTerminoRaroPesaMasQueUnoComun() {
+        // "raton" aparece en un documento y "rapido" en tres: mismo campo, distinto idf
+        BusquedaServiceImpl busqueda = indice(
+                producto(1L, "Teclado rapido", null, PERIFERICOS),
+                producto(2L, "Cable rapido", null, PERIFERICOS),
+                producto(3L, "Raton", null, PERIFERICOS),
+                producto(4L, "Hub rapido", null, PERIFERICOS));
+
+        List<Long> ids = busqueda.buscar("ra", 10);
+
+        assertEquals(4, ids.size());
+        assertEquals(3L, ids.get(0));
+    }
+
+    @Test
+    void laCoincidenciaExactaPesaMasQueLaDePrefijo() {
+        BusquedaServiceImpl busqueda = indice(
+                producto(1L, "Adaptador usbc", null, PERIFERICOS),
+                producto(2L, "Hub usb", null, PERIFERICOS));
+
+        assertEquals(List.of(2L, 1L), busqueda.buscar("usb", 10));
+        assertEquals(List.of(1L), busqueda.buscar("usbc", 10));
+    }
+
+    @Test
+    void buscaPorPrefijoSinTildesYExigeTodosLosTerminos() {
+        BusquedaServiceImpl busqueda = indice(
+                producto(1L, "Mouse Logitech G502", null, categoria(2L, "Ratones")),
+                producto(2L, "Teclado mecánico", "Con mouse de regalo", categoria(3L, "Teclados")));
+
+        assertEquals(List.of(1L), busqueda.buscar("LOG", 10));
+        assertEquals(List.of(2L), busqueda.buscar("MECANICO", 10));
+        assertEquals(List.of(1L), busqueda.buscar("mouse logi", 10));
+        assertEquals(List.of(2L), busqueda.buscar("mouse tecl", 10));
+        assertEquals(List.of(), busqueda.buscar("logitech teclado", 10));
+        assertEquals(List.of(), busqueda.buscar("ogitech", 10));
+        assertEquals(List.of(), busqueda.buscar("  ", 10));
+    }
+
+    @Test
+    void respetaElLimite() {
+        BusquedaServiceImpl busqueda = indice(
+                producto(1L, "Cable a", null, PERIFERICOS),
+                producto(2L, "Cable b", null, PERIFERICOS),
+                producto(3L, "Cable c", null, PERIFERICOS));
+
+        assertEquals(2, busqueda.buscar("cable", 2).size());
+    }
+
+    @Test
+    void indexarYEliminarActualizanElIndice() {
+        BusquedaServiceImpl busqueda = indice(
+                producto(1L, "Mouse Logitech", null, PERIFERICOS),
+                producto(2L, "Mouse Razer", null, PERIFERICOS));
+
+        busqueda.eliminar(1L);
+        assertEquals(List.of(2L), busqueda.buscar("mouse", 10));
+        assertEquals(1, busqueda.totalIndexados());
+
+        // Renombrar quita los términos viejos
+        busqueda.indexar(producto(2L, "Teclado Razer", null, PERIFERICOS));
+        assertEquals(List.of(), busqueda.buscar("mouse", 10));
+        assertEquals(List.of(2L), busqueda.buscar("teclado", 10));
+
+        // Un documento liberado se reutiliza sin mezclar términos
+        busqueda.indexar(producto(3L, "Monitor", null, PERIFERICOS));
+        assertEquals(List.of(3L), busqueda.buscar("monitor", 10));
+        assertEquals(2, busqueda.totalIndexados());
+
+        Producto inactivo = producto(3L, "Monitor", null, PERIFERICOS);
+        inactivo.setActivo(false);
+        busqueda.indexar(inactivo);
+        assertTrue(busqueda.buscar("monitor", 10).isEmpty());
+
+        busqueda.indexar(producto(4L, "Monitor", null, categoria(9L, "Oculta", false)));
+        assertTrue(busqueda.buscar("monitor", 10).isEmpty());
+    }
+
+    private static BusquedaServiceImpl indice(Producto... productos) {
+        ProductoRepository repositorio = mock(ProductoRepository.class);
+        when(repositorio.findProductosActivos()).thenReturn(List.of(productos));
+        BusquedaServiceImpl busqueda = new BusquedaServiceImpl(repositorio);
+        busqueda.reconstruir();
+        return busqueda;
+    }
+
+    private static Producto producto(Long id, String nombre, String descripcion, Categoria categoria) {
+        return Producto.builder().id(id).nombre(nombre).descripcion(descripcion).categoria(categoria).activo(true).build();
+    }
+
+    private static Categoria categoria(Long id, String nombre) {
+        return categoria(id, nombre, true);
+    }
+
+    private static Categoria categoria(Long id, String nombre, boolean activa) {
+        return Categoria.builder().id(id).nombre(nombre).activa(activa).build();
+    }
+}
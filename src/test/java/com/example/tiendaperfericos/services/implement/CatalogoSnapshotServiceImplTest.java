@@ -0,0 +1,159 @@
+package com.example.tiendaperfericos.services.implement;
+
+import com.example.tiendaperfericos.Repostory.ProductoRepository;
+import com.example.tiendaperfericos.dto.FiltroTienda;
+import com.example.tiendaperfericos.dto.ProductoResumenDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogoSnapshotServiceImplTest {
+
+    private ProductoRepository repositorio;
+    private CatalogoSnapshotServiceImpl snapshot;
+
+    @BeforeEach
+    void preparar() {
+        // Desordenados a propósito; dos empates de precio (10.00) que se desempatan por id
+        repositorio = mock(ProductoRepository.class);
+        when(repositorio.findResumenesActivos()).thenReturn(List.of(
+                resumen(6L, "20.01", 10L, 3),
+                resumen(2L, "10.00", 20L, 3),
+                resumen(7L, "30.00", 20L, 3),
+                resumen(1L, "5.00", 10L, 3),
+                resumen(4L, "15.50", 10L, 0),
+                resumen(3L, "10.00", 10L, 3),
+                resumen(5L, "20.00", 20L, 3)));
+        snapshot = new CatalogoSnapshotServiceImpl(repositorio);
+    }
+
+    @AfterEach
+    void detener() {
+        snapshot.detener();
+    }
+
+    @Test
+    void sinSnapshotNoResuelve() {
+        assertNull(snapshot.findIdsByPrecioBetween(null, BigDecimal.ONE, BigDecimal.TEN));
+        assertFalse(snapshot.puedeResolver(new FiltroTienda()));
+
+        snapshot.reconstruir();
+
+        assertTrue(snapshot.puedeResolver(new FiltroTienda()));
+        assertFalse(snapshot.puedeResolver(FiltroTienda.builder().busqueda("mouse").build()));
+        assertFalse(snapshot.puedeResolver(FiltroTienda.builder().orden("nombre-asc").build()));
+    }
+
+    @Test
+    void rangoDePrecioConBusquedaBinaria() {
+        snapshot.reconstruir();
+
+        assertEquals(List.of(2L, 3L, 4L, 5L), snapshot.findIdsByPrecioBetween(null, precio("10"), precio("20")));
+        assertEquals(List.of(3L, 4L), snapshot.findIdsByPrecioBetween(10L, precio("10"), precio("20")));
+        // El mínimo redondea hacia arriba y el máximo hacia abajo: 10.001..19.999 excluye 10.00 y 20.00
+        assertEquals(List.of(4L), snapshot.findIdsByPrecioBetween(null, precio("10.001"), precio("19.999")));
+        assertEquals(List.of(), snapshot.findIdsByPrecioBetween(null, precio("25"), precio("20")));
+        assertEquals(List.of(), snapshot.findIdsByPrecioBetween(null, precio("40"), null));
+        assertEquals(List.of(), snapshot.findIdsByPrecioBetween(null, null, precio("4.99")));
+    }
+
+    @Test
+    void limitesNulosNoAcotan() {
+        snapshot.reconstruir();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), snapshot.findIdsByPrecioBetween(null, null, null));
+        assertEquals(List.of(1L, 2L, 3L), snapshot.findIdsByPrecioBetween(null, null, precio("10")));
+        assertEquals(List.of(6L, 7L), snapshot.findIdsByPrecioBetween(null, precio("20.01"), null));
+    }
+
+    @Test
+    void paginaPorPrecioAscendenteDesdeElCursor() {
+        snapshot.reconstruir();
+        FiltroTienda filtro = FiltroTienda.builder().orden("precio-asc").build();
+
+        assertEquals(List.of(1L, 2L, 3L), ids(snapshot.findPaginaTienda(filtro, null, null, 3)));
+        assertEquals(List.of(3L, 4L, 5L), ids(snapshot.findPaginaTienda(filtro, precio("10.00"), 2L, 3)));
+        assertEquals(List.of(4L, 5L, 6L), ids(snapshot.findPaginaTienda(filtro, precio("10.00"), 3L, 3)));
+        assertEquals(List.of(), ids(snapshot.findPaginaTienda(filtro, precio("30.00"), 7L, 3)));
+    }
+
+    @Test
+    void paginaPorPrecioDescendenteDesdeElCursor() {
+        snapshot.reconstruir();
+        FiltroTienda filtro = FiltroTienda.builder().orden("precio-desc").build();
+
+        assertEquals(List.of(7L, 6L, 5L), ids(snapshot.findPaginaTienda(filtro, null, null, 3)));
+        assertEquals(List.of(4L, 3L, 2L), ids(snapshot.findPaginaTienda(filtro, precio("20.00"), 5L, 3)));
+        assertEquals(List.of(2L, 1L), ids(snapshot.findPaginaTienda(filtro, precio("10.00"), 3L, 3)));
+    }
+
+    @Test
+    void recorrerTodasLasPaginasNoRepiteNiSalta() {
+        snapshot.reconstruir();
+        FiltroTienda filtro = FiltroTienda.builder().orden("precio-asc").build();
+
+        List<Long> vistos = new ArrayList<>();
+        BigDecimal cursorPrecio = null;
+        Long cursorId = null;
+        while (true) {
+            List<ProductoResumenDTO> pagina = snapshot.findPaginaTienda(filtro, cursorPrecio, cursorId, 2);
+            if (pagina.isEmpty()) {
+                break;
+            }
+            vistos.addAll(ids(pagina));
+            ProductoResumenDTO ultimo = pagina.get(pagina.size() - 1);
+            cursorPrecio = ultimo.getPrecio();
+            cursorId = ultimo.getId();
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), vistos);
+    }
+
+    @Test
+    void ordenPorIdConFiltros() {
+        snapshot.reconstruir();
+
+        assertEquals(List.of(5L, 6L, 7L), ids(snapshot.findPaginaTienda(new FiltroTienda(), null, 4L, 3)));
+
+        FiltroTienda filtro = FiltroTienda.builder().categoriaId(10L).precioMin(precio("10")).precioMax(precio("20")).build();
+        assertEquals(List.of(3L, 4L), ids(snapshot.findPaginaTienda(filtro, null, null, 10)));
+        filtro.setEnStock(true);
+        assertEquals(List.of(3L), ids(snapshot.findPaginaTienda(filtro, null, null, 10)));
+    }
+
+    @Test
+    void devuelveCopiasQueNoAlteranElSnapshot() {
+        snapshot.reconstruir();
+        FiltroTienda filtro = new FiltroTienda();
+
+        ProductoResumenDTO primero = snapshot.findPaginaTienda(filtro, null, null, 1).get(0);
+        assertEquals("Producto 1", primero.getNombre());
+        assertEquals("Categoria 10", primero.getCategoriaNombre());
+        primero.setImagenUrl("/otra.webp");
+
+        assertEquals("/img/1.webp", snapshot.findPaginaTienda(filtro, null, null, 1).get(0).getImagenUrl());
+    }
+
+    private static ProductoResumenDTO resumen(Long id, String precio, Long categoriaId, int stock) {
+        return new ProductoResumenDTO(id, "Producto " + id, null, new BigDecimal(precio), stock,
+                "/img/" + id + ".webp", categoriaId, "Categoria " + categoriaId, true);
+    }
+
+    private static BigDecimal precio(String valor) {
+        return new BigDecimal(valor);
+    }
+
+    private static List<Long> ids(List<ProductoResumenDTO> productos) {
+        return productos.stream().map(ProductoResumenDTO::getId).toList();
+    }
+}
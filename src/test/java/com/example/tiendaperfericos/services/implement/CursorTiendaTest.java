@@ -0,0 +1,55 @@
+package com.example.tiendaperfericos.services.implement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cursor opaco de la paginación keyset de la tienda: "valor|id" en Base64 URL sin relleno.
+ */
+class CursorTiendaTest {
+
+    @Test
+    void idaYVuelta() {
+        assertArrayEquals(new String[]{"19.99", "42"},
+                ProductoServiceImpl.decodificarCursor(ProductoServiceImpl.codificarCursor("19.99", 42L)));
+        assertArrayEquals(new String[]{"", "7"},
+                ProductoServiceImpl.decodificarCursor(ProductoServiceImpl.codificarCursor("", 7L)));
+    }
+
+    @Test
+    void elValorPuedeLlevarSeparadorYTildes() {
+        String cursor = ProductoServiceImpl.codificarCursor("Cable | USB ñandú", 3L);
+
+        assertArrayEquals(new String[]{"Cable | USB ñandú", "3"}, ProductoServiceImpl.decodificarCursor(cursor));
+    }
+
+    @Test
+    void esSeguroEnUnaUrl() {
+        String cursor = ProductoServiceImpl.codificarCursor("??>>~~ú", 123456789L);
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void sinCursorEmpiezaDesdeElPrincipio() {
+        assertNull(ProductoServiceImpl.decodificarCursor(null));
+        assertNull(ProductoServiceImpl.decodificarCursor(" "));
+    }
+
+    @Test
+    void rechazaCursoresManipulados() {
+        assertThrows(RuntimeException.class, () -> ProductoServiceImpl.decodificarCursor("***"));
+        assertThrows(RuntimeException.class, () -> ProductoServiceImpl.decodificarCursor(base64("sinseparador")));
+        assertThrows(RuntimeException.class, () -> ProductoServiceImpl.decodificarCursor(base64("19.99|uno")));
+    }
+
+    private static String base64(String texto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes());
+    }
+}
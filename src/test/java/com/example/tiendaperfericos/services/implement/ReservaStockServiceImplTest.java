@@ -0,0 +1,127 @@
+package com.example.tiendaperfericos.services.implement;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReservaStockServiceImplTest {
+
+    private static final Long PRODUCTO = 1L;
+    private static final Long ANA = 10L;
+    private static final Long LUIS = 20L;
+
+    private final ReservaStockServiceImpl reservas = new ReservaStockServiceImpl(15);
+
+    @Test
+    void elDisponibleDescuentaSoloLasReservasDeLosDemas() {
+        reservas.reservar(PRODUCTO, ANA, 3, 10);
+        reservas.reservar(PRODUCTO, LUIS, 4, 10);
+
+        assertEquals(6, reservas.disponible(PRODUCTO, ANA, 10));
+        assertEquals(7, reservas.disponible(PRODUCTO, LUIS, 10));
+        assertEquals(3, reservas.disponible(PRODUCTO, 99L, 10));
+        // Invitados: cuentan todas las reservas
+        assertEquals(3, reservas.disponible(PRODUCTO, null, 10));
+        assertEquals(10, reservas.disponible(2L, null, 10));
+    }
+
+    @Test
+    void elDisponibleNuncaEsNegativo() {
+        reservas.reservar(PRODUCTO, ANA, 5, 5);
+
+        // El stock bajó por debajo de lo reservado
+        assertEquals(0, reservas.disponible(PRODUCTO, LUIS, 2));
+    }
+
+    @Test
+    void reservarSustituyeLaReservaAnterior() {
+        reservas.reservar(PRODUCTO, ANA, 3, 10);
+        reservas.reservar(PRODUCTO, ANA, 5, 10);
+        assertEquals(5, reservas.disponible(PRODUCTO, LUIS, 10));
+
+        reservas.reservar(PRODUCTO, ANA, 1, 10);
+        assertEquals(9, reservas.disponible(PRODUCTO, LUIS, 10));
+    }
+
+    @Test
+    void sinDisponibleFallaSinTocarNada() {
+        reservas.reservar(PRODUCTO, ANA, 4, 10);
+        reservas.reservar(PRODUCTO, LUIS, 2, 10);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> reservas.reservar(PRODUCTO, LUIS, 7, 10));
+        assertEquals("Stock insuficiente. Disponible: 6", error.getMessage());
+        // La reserva de Luis sigue siendo 2
+        assertEquals(8, reservas.disponible(PRODUCTO, ANA, 10));
+    }
+
+    @Test
+    void reservarHastaRecortaALoQueHay() {
+        reservas.reservar(PRODUCTO, ANA, 7, 10);
+
+        assertEquals(3, reservas.reservarHasta(PRODUCTO, LUIS, 5, 10));
+        assertEquals(0, reservas.disponible(PRODUCTO, null, 10));
+        assertEquals(0, reservas.reservarHasta(PRODUCTO, 99L, 5, 10));
+    }
+
+    @Test
+    void liberarYConfirmarDevuelvenElStock() {
+        reservas.reservar(PRODUCTO, ANA, 4, 10);
+        reservas.reservar(2L, ANA, 2, 5);
+        reservas.reservar(PRODUCTO, LUIS, 1, 10);
+
+        reservas.liberar(PRODUCTO, LUIS);
+        assertEquals(6, reservas.disponible(PRODUCTO, LUIS, 10));
+
+        reservas.confirmar(ANA);
+        assertEquals(10, reservas.disponible(PRODUCTO, null, 10));
+        assertEquals(5, reservas.disponible(2L, null, 5));
+    }
+
+    @Test
+    void lasReservasCaducadasNoCuentan() {
+        // Con TTL cero cada reserva caduca en cuanto se crea
+        ReservaStockServiceImpl efimeras = new ReservaStockServiceImpl(0);
+        efimeras.reservar(PRODUCTO, ANA, 10, 10);
+
+        assertEquals(10, efimeras.disponible(PRODUCTO, LUIS, 10));
+        efimeras.reservar(PRODUCTO, LUIS, 10, 10);
+        efimeras.purgarCaducadas();
+        assertEquals(10, efimeras.disponible(PRODUCTO, null, 10));
+    }
+
+    @Test
+    void restaurarDevuelveLaReservaExactaAunqueNoHayaDisponible() {
+        reservas.reservar(PRODUCTO, ANA, 6, 10);
+        assertEquals(6, reservas.reservada(PRODUCTO, ANA));
+
+        // Ana baja a 2 y Luis se lleva lo que quedó libre: restaurar no mira el disponible
+        reservas.reservar(PRODUCTO, ANA, 2, 10);
+        reservas.reservar(PRODUCTO, LUIS, 8, 10);
+        reservas.restaurar(PRODUCTO, ANA, 6);
+        assertEquals(6, reservas.reservada(PRODUCTO, ANA));
+
+        reservas.restaurar(PRODUCTO, ANA, 0);
+        assertEquals(0, reservas.reservada(PRODUCTO, ANA));
+        assertEquals(2, reservas.disponible(PRODUCTO, ANA, 10));
+    }
+
+    @Test
+    void unaReservaCaducadaNoCuentaComoReservada() {
+        ReservaStockServiceImpl efimeras = new ReservaStockServiceImpl(0);
+        efimeras.reservar(PRODUCTO, ANA, 3, 10);
+
+        assertEquals(0, efimeras.reservada(PRODUCTO, ANA));
+        assertEquals(0, reservas.reservada(PRODUCTO, ANA));
+    }
+
+    @Test
+    void renovarNoCambiaLasCantidades() {
+        reservas.reservar(PRODUCTO, ANA, 4, 10);
+        reservas.renovar(ANA);
+        reservas.renovar(LUIS);
+
+        assertEquals(6, reservas.disponible(PRODUCTO, LUIS, 10));
+    }
+}
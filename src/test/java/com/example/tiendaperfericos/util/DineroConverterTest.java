@@ -0,0 +1,37 @@
+package com.example.tiendaperfericos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DineroConverterTest {
+
+    private final DineroConverter converter = new DineroConverter();
+
+    @Test
+    void guardaConDosDecimales() {
+        assertEquals(new BigDecimal("12.34"), converter.convertToDatabaseColumn(new Dinero(1234)));
+        assertEquals(new BigDecimal("0.00"), converter.convertToDatabaseColumn(Dinero.CERO));
+    }
+
+    @Test
+    void leeLaColumnaEnCentavos() {
+        assertEquals(new Dinero(1234), converter.convertToEntityAttribute(new BigDecimal("12.34")));
+        assertEquals(new Dinero(-5), converter.convertToEntityAttribute(new BigDecimal("-0.05")));
+    }
+
+    @Test
+    void idaYVueltaSinPerderCentavos() {
+        Dinero dinero = new Dinero(987_654_321);
+        assertEquals(dinero, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(dinero)));
+    }
+
+    @Test
+    void nullSeQuedaEnNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
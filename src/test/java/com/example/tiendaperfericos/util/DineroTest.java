@@ -0,0 +1,78 @@
+package com.example.tiendaperfericos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DineroTest {
+
+    @Test
+    void centavosDeImportesConDosDecimales() {
+        assertEquals(1234, Dinero.centavos(new BigDecimal("12.34")));
+        assertEquals(-1234, Dinero.centavos(new BigDecimal("-12.34")));
+        assertEquals(0, Dinero.centavos(new BigDecimal("0.00")));
+        assertEquals(0, Dinero.centavos(null));
+    }
+
+    @Test
+    void centavosAjustaOtrasEscalas() {
+        assertEquals(1000, Dinero.centavos(new BigDecimal("10")));
+        assertEquals(10, Dinero.centavos(new BigDecimal("0.1")));
+        assertEquals(120_000, Dinero.centavos(new BigDecimal("1.2E+3")));
+    }
+
+    @Test
+    void centavosRedondeaMitadHaciaArriba() {
+        assertEquals(101, Dinero.centavos(new BigDecimal("1.005")));
+        assertEquals(100, Dinero.centavos(new BigDecimal("1.0049")));
+        // HALF_UP se aleja del cero también en negativos, como MySQL
+        assertEquals(-101, Dinero.centavos(new BigDecimal("-1.005")));
+        assertEquals(-100, Dinero.centavos(new BigDecimal("-1.0049")));
+    }
+
+    @Test
+    void centavosFallaSiNoCabeEnUnLong() {
+        assertEquals(Long.MAX_VALUE, Dinero.centavos(new BigDecimal("92233720368547758.07")));
+        assertThrows(ArithmeticException.class, () -> Dinero.centavos(new BigDecimal("92233720368547758.08")));
+        assertThrows(ArithmeticException.class, () -> Dinero.centavos(new BigDecimal("1E+30")));
+    }
+
+    @Test
+    void subtotalMultiplicaEnCentavos() {
+        assertEquals(5997, Dinero.subtotal(new BigDecimal("19.99"), 3));
+        assertEquals(0, Dinero.subtotal(new BigDecimal("19.99"), 0));
+        assertEquals(0, Dinero.subtotal(null, 5));
+        assertEquals(-600, Dinero.subtotal(new BigDecimal("-2.00"), 3));
+        assertThrows(ArithmeticException.class,
+                () -> Dinero.subtotal(new BigDecimal("92233720368547758.07"), 2));
+    }
+
+    @Test
+    void aDecimalConservaDosDecimales() {
+        assertEquals(new BigDecimal("12.34"), Dinero.aDecimal(1234));
+        assertEquals(new BigDecimal("-0.05"), Dinero.aDecimal(-5));
+        assertEquals(new BigDecimal("0.00"), Dinero.aDecimal(0));
+        assertEquals(new BigDecimal("59.97"), new Dinero(5997).aDecimal());
+    }
+
+    @Test
+    void masSumaYDetectaDesbordamiento() {
+        assertEquals(new Dinero(350), new Dinero(100).mas(new Dinero(250)));
+        assertEquals(new Dinero(-50), new Dinero(100).mas(new Dinero(-150)));
+        assertEquals(new Dinero(100), Dinero.CERO.mas(new Dinero(100)));
+        assertThrows(ArithmeticException.class, () -> new Dinero(Long.MAX_VALUE).mas(new Dinero(1)));
+        assertThrows(ArithmeticException.class, () -> new Dinero(Long.MIN_VALUE).mas(new Dinero(-1)));
+    }
+
+    @Test
+    void comparaYSeMuestraComoImporte() {
+        assertTrue(new Dinero(599).compareTo(new Dinero(5000)) < 0);
+        assertEquals(0, Dinero.de(new BigDecimal("5.5")).compareTo(new Dinero(550)));
+        assertEquals("5.50", Dinero.de(new BigDecimal("5.5")).toString());
+        assertEquals("-0.05", new Dinero(-5).toString());
+    }
+}